@@ -0,0 +1,62 @@
+package com.rgdasil.cart_service.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.rgdasil.cart_service.domain.Cart;
+import com.rgdasil.cart_service.domain.CartItem;
+import com.rgdasil.cart_service.dto.ProductDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dados compartilhados pelos benchmarks.
+ */
+final class BenchmarkData {
+
+    static final String USER_ID = "bench-user";
+
+    private BenchmarkData() {
+    }
+
+    static Map<String, CartItem> items(int count) {
+        Map<String, CartItem> items = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String productId = "prod-" + i;
+            items.put(productId, CartItem.builder()
+                    .productId(productId)
+                    .productName("Produto de Benchmark " + i)
+                    .quantity(1 + i % 5)
+                    .priceCents(999L + i)
+                    .build());
+        }
+        return items;
+    }
+
+    static Cart cart(int itemCount) {
+        Cart cart = Cart.builder().userId(USER_ID).items(items(itemCount)).build();
+        cart.setVersion(1L);
+        return cart;
+    }
+
+    static ProductDTO product() {
+        return ProductDTO.builder()
+                .id("prod-1")
+                .name("Produto de Benchmark")
+                .description("Descrição de um produto qualquer do catálogo")
+                .price(149.9)
+                .stock(42)
+                .createdAt(OffsetDateTime.now())
+                .updatedAt(OffsetDateTime.now())
+                .build();
+    }
+
+    /**
+     * Sem configuracao o logback registra tudo em DEBUG, o que distorce as medicoes.
+     */
+    static void quietLogging() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+}
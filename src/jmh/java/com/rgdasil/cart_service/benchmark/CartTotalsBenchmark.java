@@ -0,0 +1,59 @@
+package com.rgdasil.cart_service.benchmark;
+
+import com.rgdasil.cart_service.domain.Cart;
+import com.rgdasil.cart_service.domain.CartItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leitura dos totais do carrinho e custo de montar o carrinho (com os totais)
+ * a partir dos itens, como acontece a cada leitura do Redis.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CartTotalsBenchmark {
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    private int itemCount;
+
+    private Map<String, CartItem> items;
+    private Cart cart;
+
+    @Setup
+    public void setUp() {
+        items = BenchmarkData.items(itemCount);
+        cart = Cart.builder().userId(BenchmarkData.USER_ID).items(items).build();
+    }
+
+    @Benchmark
+    public BigDecimal getTotalPrice() {
+        return cart.getTotalPrice();
+    }
+
+    @Benchmark
+    public int getItemCount() {
+        return cart.getItemCount();
+    }
+
+    @Benchmark
+    public Cart buildCart() {
+        return Cart.builder().userId(BenchmarkData.USER_ID).items(items).build();
+    }
+}
@@ -0,0 +1,63 @@
+package com.rgdasil.cart_service.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rgdasil.cart_service.domain.Cart;
+import com.rgdasil.cart_service.dto.ProductDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializacao JSON com um ObjectMapper equivalente ao do Spring Boot: a
+ * resposta do GET /cart e a resposta do product-service.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int itemCount;
+
+    private ObjectMapper objectMapper;
+    private Cart cart;
+    private ProductDTO product;
+    private byte[] productJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        cart = BenchmarkData.cart(itemCount);
+        product = BenchmarkData.product();
+        productJson = objectMapper.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public byte[] serializeCart() throws Exception {
+        return objectMapper.writeValueAsBytes(cart);
+    }
+
+    @Benchmark
+    public byte[] serializeProduct() throws Exception {
+        return objectMapper.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public ProductDTO deserializeProduct() throws Exception {
+        return objectMapper.readValue(productJson, ProductDTO.class);
+    }
+}
@@ -0,0 +1,112 @@
+package com.rgdasil.cart_service.benchmark;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.rgdasil.cart_service.metrics.HopMetrics;
+import com.rgdasil.cart_service.resilience.DependencyGuard;
+import com.rgdasil.cart_service.security.JwtAuthInterceptor;
+import com.rgdasil.cart_service.security.LocalJwtVerifier;
+import com.rgdasil.cart_service.security.TokenValidationCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JwtAuthInterceptor#preHandle} com o auth-service simulado em
+ * processo (sem rede), em tres cenarios:
+ * <ul>
+ * <li>{@code remote}: sem cache nem verificacao local, toda chamada vai ao stub;</li>
+ * <li>{@code cached}: token ja presente no {@link TokenValidationCache};</li>
+ * <li>{@code local}: assinatura HS256 verificada pelo {@link LocalJwtVerifier}.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthInterceptorBenchmark {
+
+    private static final String HMAC_SECRET = "benchmark-secret-with-at-least-256-bits";
+
+    @Param({"remote", "cached", "local"})
+    private String mode;
+
+    private JwtAuthInterceptor interceptor;
+    private String authorization;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkData.quietLogging();
+
+        TokenValidationCache cache = new TokenValidationCache("cached".equals(mode), 10_000,
+                Duration.ofMinutes(5), Duration.ofSeconds(30), new SimpleMeterRegistry());
+        LocalJwtVerifier verifier = new LocalJwtVerifier("local".equals(mode), true, false, "user_id",
+                Duration.ofSeconds(30), HMAC_SECRET, "", "");
+
+        interceptor = new JwtAuthInterceptor(new RestTemplate(stubAuthService()), cache, verifier,
+                new HopMetrics(new SimpleMeterRegistry()), DependencyGuard.unguarded());
+        ReflectionTestUtils.setField(interceptor, "authServiceUrl", "http://auth.stub/auth/validate");
+        ReflectionTestUtils.setField(interceptor, "internalApiKey", "benchmark-key");
+
+        authorization = "Bearer " + signedToken();
+        // Aquece o cache no cenario "cached"
+        preHandle();
+    }
+
+    @Benchmark
+    public boolean preHandle() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cart");
+        request.addHeader("Authorization", authorization);
+        return interceptor.preHandle(request, new MockHttpServletResponse(), null);
+    }
+
+    private static ClientHttpRequestFactory stubAuthService() {
+        byte[] body = ("{\"valid\":true,\"userId\":\"" + BenchmarkData.USER_ID + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        return (uri, httpMethod) -> {
+            MockClientHttpResponse response = new MockClientHttpResponse(body, HttpStatus.OK);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            MockClientHttpRequest request = new MockClientHttpRequest(httpMethod, uri);
+            request.setResponse(response);
+            return request;
+        };
+    }
+
+    private static String signedToken() throws Exception {
+        SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), new JWTClaimsSet.Builder()
+                .claim("user_id", BenchmarkData.USER_ID)
+                .expirationTime(Date.from(Instant.now().plus(Duration.ofHours(1))))
+                .build());
+        jwt.sign(new MACSigner(HMAC_SECRET.getBytes(StandardCharsets.UTF_8)));
+        return jwt.serialize();
+    }
+}
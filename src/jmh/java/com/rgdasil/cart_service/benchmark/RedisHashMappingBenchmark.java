@@ -0,0 +1,59 @@
+package com.rgdasil.cart_service.benchmark;
+
+import com.rgdasil.cart_service.domain.Cart;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.convert.MappingRedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.data.redis.core.mapping.RedisMappingContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversao do {@link Cart} para o hash do {@code @RedisHash("carts")} e de
+ * volta, feita pelo Spring Data em todo save/findById.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedisHashMappingBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int itemCount;
+
+    private MappingRedisConverter converter;
+    private Cart cart;
+    private RedisData written;
+
+    @Setup
+    public void setUp() {
+        converter = new MappingRedisConverter(new RedisMappingContext());
+        converter.afterPropertiesSet();
+        cart = BenchmarkData.cart(itemCount);
+        written = write();
+    }
+
+    @Benchmark
+    public RedisData write() {
+        RedisData data = new RedisData();
+        converter.write(cart, data);
+        return data;
+    }
+
+    @Benchmark
+    public Cart read() {
+        return converter.read(Cart.class, written);
+    }
+}
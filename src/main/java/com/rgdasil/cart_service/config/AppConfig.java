@@ -1,15 +1,121 @@
 package com.rgdasil.cart_service.config;
 
+import java.net.http.HttpClient;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.RestTemplate;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+
 @Configuration
+@EnableScheduling
+@EnableConfigurationProperties(HttpClientProperties.class)
 public class AppConfig {
 
 	@Bean
-	public RestTemplate restTemplate() {
-		return new RestTemplate();
+	public ClientHttpRequestFactory authRequestFactory(HttpClientProperties properties, MeterRegistry meterRegistry) {
+		return requestFactory("auth", properties.getAuth(), meterRegistry);
+	}
+
+	@Bean
+	public ClientHttpRequestFactory productRequestFactory(HttpClientProperties properties,
+			MeterRegistry meterRegistry) {
+		return requestFactory("product", properties.getProduct(), meterRegistry);
+	}
+
+	@Bean
+	public RestTemplate authRestTemplate(@Qualifier("authRequestFactory") ClientHttpRequestFactory requestFactory) {
+		return new RestTemplate(requestFactory);
+	}
+
+	@Bean
+	public RestTemplate productRestTemplate(
+			@Qualifier("productRequestFactory") ClientHttpRequestFactory requestFactory) {
+		return new RestTemplate(requestFactory);
 	}
-	
+
+	@Bean
+	public AsyncTaskExecutor cartLoadExecutor(@Value("${cart.load.threads:16}") int loadThreads,
+			@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+		if (virtualThreads) {
+			SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("cart-load-");
+			executor.setVirtualThreads(true);
+			executor.setConcurrencyLimit(loadThreads);
+			return executor;
+		}
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(loadThreads);
+		executor.setMaxPoolSize(loadThreads);
+		executor.setQueueCapacity(200);
+		executor.setThreadNamePrefix("cart-load-");
+		// Com a fila cheia a leitura roda na thread da requisicao, como antes
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		return executor;
+	}
+
+	/**
+	 * Cada dependencia tem seu proprio pool, para que uma dependencia lenta nao
+	 * consuma as conexoes da outra.
+	 */
+	private static ClientHttpRequestFactory requestFactory(String name, HttpClientProperties.Client client,
+			MeterRegistry meterRegistry) {
+
+		if (client.getProtocol() == HttpClientProperties.Protocol.HTTP_2) {
+			HttpClient httpClient = HttpClient.newBuilder()
+					.version(HttpClient.Version.HTTP_2)
+					.connectTimeout(client.getConnectTimeout())
+					.build();
+			JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+			factory.setReadTimeout(client.getReadTimeout());
+			return factory;
+		}
+
+		PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+				.setMaxConnTotal(client.getMaxConnections())
+				.setMaxConnPerRoute(client.getMaxConnectionsPerRoute())
+				.setDefaultConnectionConfig(ConnectionConfig.custom()
+						.setConnectTimeout(Timeout.of(client.getConnectTimeout()))
+						.setSocketTimeout(Timeout.of(client.getReadTimeout()))
+						.setValidateAfterInactivity(TimeValue.ofSeconds(2))
+						.build())
+				.build();
+
+		CloseableHttpClient httpClient = HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(RequestConfig.custom()
+						.setConnectionRequestTimeout(Timeout.of(client.getPoolAcquireTimeout()))
+						.setResponseTimeout(Timeout.of(client.getReadTimeout()))
+						.setConnectionKeepAlive(TimeValue.of(client.getKeepAlive()))
+						.build())
+				.evictExpiredConnections()
+				.evictIdleConnections(TimeValue.of(client.getKeepAlive()))
+				.build();
+
+		// Metricas do pool: conexoes leased/available, pendentes e limites
+		new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, name).bindTo(meterRegistry);
+
+		return new HttpComponentsClientHttpRequestFactory(httpClient);
+	}
+
 }
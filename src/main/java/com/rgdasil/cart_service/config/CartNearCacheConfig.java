@@ -0,0 +1,43 @@
+package com.rgdasil.cart_service.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import com.rgdasil.cart_service.service.CartNearCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Near cache de carrinhos e o listener do canal de invalidacao. Desligado
+ * por padrao: so compensa com balanceamento sticky por usuario.
+ */
+@Configuration
+@ConditionalOnProperty(name = "cache.cart.near.enabled", havingValue = "true")
+public class CartNearCacheConfig {
+
+	@Bean
+	public CartNearCache cartNearCache(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry,
+			@Value("${cache.cart.near.channel:cart-invalidations}") String channel,
+			@Value("${cache.cart.near.max-size:10000}") long maxSize,
+			@Value("${cache.cart.near.ttl:30s}") Duration ttl) {
+		return new CartNearCache(redisTemplate, channel, maxSize, ttl, meterRegistry);
+	}
+
+	@Bean
+	public RedisMessageListenerContainer cartInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+			CartNearCache cartNearCache,
+			@Value("${cache.cart.near.channel:cart-invalidations}") String channel) {
+		RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+		container.setConnectionFactory(connectionFactory);
+		container.addMessageListener(cartNearCache, new ChannelTopic(channel));
+		return container;
+	}
+}
@@ -0,0 +1,44 @@
+package com.rgdasil.cart_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.rgdasil.cart_service.service.CatalogChangeFeed;
+import com.rgdasil.cart_service.service.CatalogReplica;
+import com.rgdasil.cart_service.service.RestProductServiceClient;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Replica local do catalogo e o consumidor do stream de mudancas de produto.
+ * Desligada por padrao: depende do product-service publicar no stream. Com
+ * ela ligada, o {@link ProductClientConfig} poe a replica na frente das
+ * demais camadas.
+ */
+@Configuration
+@ConditionalOnProperty(name = "catalog.replica.enabled", havingValue = "true")
+public class CatalogReplicaConfig {
+
+	@Bean
+	public CatalogReplica catalogReplica(MeterRegistry meterRegistry,
+			@Value("${catalog.replica.initial-capacity:10000}") int initialCapacity) {
+		CatalogReplica replica = new CatalogReplica(initialCapacity);
+		replica.bindMetrics(meterRegistry);
+		return replica;
+	}
+
+	// A ressincronizacao vai direto ao product-service, sem passar pelo cache de produtos
+	@Bean
+	public CatalogChangeFeed catalogChangeFeed(CatalogReplica catalogReplica,
+			RestProductServiceClient restProductServiceClient, StringRedisTemplate redisTemplate,
+			RedisConnectionFactory connectionFactory, MeterRegistry meterRegistry,
+			@Value("${catalog.replica.stream:product-changes}") String stream,
+			@Value("${catalog.replica.batch-size:100}") int batchSize) {
+		return new CatalogChangeFeed(catalogReplica, restProductServiceClient, redisTemplate, connectionFactory,
+				stream, batchSize, meterRegistry);
+	}
+}
@@ -0,0 +1,35 @@
+package com.rgdasil.cart_service.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Limites adaptativos de concorrencia por dependencia
+ * ({@code concurrency.limit.auth.*} e {@code concurrency.limit.product.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "concurrency.limit")
+public class ConcurrencyLimitProperties {
+
+	private Limit auth = new Limit();
+	private Limit product = new Limit();
+
+	@Data
+	public static class Limit {
+
+		private boolean enabled = true;
+
+		private int initialLimit = 20;
+		private int minLimit = 2;
+		private int maxLimit = 200;
+
+		// Chamadas acima deste tempo contam como sinal de sobrecarga e reduzem o limite
+		private Duration latencyThreshold = Duration.ofMillis(500);
+
+		// Fator aplicado ao limite a cada chamada lenta ou com falha
+		private double backoffRatio = 0.9;
+	}
+}
@@ -0,0 +1,42 @@
+package com.rgdasil.cart_service.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Configuracao dos clientes HTTP de cada dependencia ({@code http.client.auth.*}
+ * e {@code http.client.product.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "http.client")
+public class HttpClientProperties {
+
+	private Client auth = new Client();
+	private Client product = new Client();
+
+	public enum Protocol {
+		HTTP_1_1, HTTP_2
+	}
+
+	@Data
+	public static class Client {
+
+		// HTTP_2 usa o HttpClient do JDK (multiplexado, sem pool nem metricas de pool)
+		private Protocol protocol = Protocol.HTTP_1_1;
+
+		private Duration connectTimeout = Duration.ofSeconds(1);
+		private Duration readTimeout = Duration.ofSeconds(2);
+
+		// Tempo maximo esperando uma conexao livre no pool
+		private Duration poolAcquireTimeout = Duration.ofMillis(500);
+
+		private int maxConnections = 100;
+		private int maxConnectionsPerRoute = 50;
+
+		// Quanto tempo uma conexao ociosa e mantida aberta quando o servidor nao informa
+		private Duration keepAlive = Duration.ofSeconds(30);
+	}
+}
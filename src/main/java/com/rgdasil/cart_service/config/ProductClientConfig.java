@@ -0,0 +1,118 @@
+package com.rgdasil.cart_service.config;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.rgdasil.cart_service.service.CachingProductServiceClient;
+import com.rgdasil.cart_service.service.CatalogReplica;
+import com.rgdasil.cart_service.service.CoalescingProductServiceClient;
+import com.rgdasil.cart_service.service.ProductServiceClient;
+import com.rgdasil.cart_service.service.ReplicatedProductServiceClient;
+import com.rgdasil.cart_service.service.RestProductServiceClient;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Monta o {@link ProductServiceClient} usado pelo restante da aplicacao,
+ * empilhando as camadas habilitadas por configuracao sobre o
+ * {@link RestProductServiceClient}.
+ */
+@Configuration
+public class ProductClientConfig {
+
+	@Value("${spring.threads.virtual.enabled:false}")
+	private boolean virtualThreads;
+
+	@Bean
+	public AsyncTaskExecutor productRefreshExecutor(
+			@Value("${cache.product.refresh-threads:2}") int refreshThreads) {
+		if (virtualThreads) {
+			// Refreshes ja sao deduplicados por produto; uma virtual thread por refresh
+			SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("product-refresh-");
+			executor.setVirtualThreads(true);
+			return executor;
+		}
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(refreshThreads);
+		executor.setMaxPoolSize(refreshThreads);
+		executor.setQueueCapacity(1000);
+		executor.setThreadNamePrefix("product-refresh-");
+		// Refresh e best-effort: com a fila cheia a entrada antiga continua sendo servida
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+		return executor;
+	}
+
+	@Bean
+	public AsyncTaskExecutor productBatchExecutor(
+			@Value("${service.product.batch-threads:8}") int batchThreads) {
+		if (virtualThreads) {
+			// O limite de concorrencia faz o chamador esperar, como o CallerRunsPolicy
+			SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("product-batch-");
+			executor.setVirtualThreads(true);
+			executor.setConcurrencyLimit(batchThreads);
+			return executor;
+		}
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(batchThreads);
+		executor.setMaxPoolSize(batchThreads);
+		executor.setQueueCapacity(100);
+		executor.setThreadNamePrefix("product-batch-");
+		// Com a fila cheia o proprio chamador executa o lote
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		return executor;
+	}
+
+	@Bean
+	public CoalescingProductServiceClient coalescingProductServiceClient(
+			RestProductServiceClient restProductServiceClient, MeterRegistry meterRegistry) {
+		return new CoalescingProductServiceClient(restProductServiceClient, meterRegistry);
+	}
+
+	@Bean
+	@Primary
+	public ProductServiceClient productServiceClient(RestProductServiceClient restProductServiceClient,
+			CoalescingProductServiceClient coalescingProductServiceClient,
+			@Qualifier("productRefreshExecutor") AsyncTaskExecutor productRefreshExecutor,
+			MeterRegistry meterRegistry,
+			ObjectProvider<CatalogReplica> catalogReplica,
+			@Value("${product.coalescing.enabled:true}") boolean coalescingEnabled,
+			@Value("${cache.product.enabled:true}") boolean cacheEnabled,
+			@Value("${cache.product.max-size:10000}") long cacheMaxSize,
+			@Value("${cache.product.ttl:1m}") Duration cacheTtl,
+			@Value("${cache.product.negative-ttl:10s}") Duration cacheNegativeTtl,
+			@Value("${cache.product.max-stale:10m}") Duration cacheMaxStale) {
+
+		ProductServiceClient client = restProductServiceClient;
+
+		if (coalescingEnabled) {
+			client = coalescingProductServiceClient;
+		}
+
+		if (cacheEnabled) {
+			CachingProductServiceClient cachingClient = new CachingProductServiceClient(client,
+					productRefreshExecutor, cacheMaxSize, cacheTtl, cacheNegativeTtl, cacheMaxStale);
+			cachingClient.bindMetrics(meterRegistry, "products");
+			client = cachingClient;
+		}
+
+		// Com a replica do catalogo, as camadas abaixo so atendem produtos que ela ainda nao conhece
+		CatalogReplica replica = catalogReplica.getIfAvailable();
+		if (replica != null) {
+			ReplicatedProductServiceClient replicatedClient = new ReplicatedProductServiceClient(replica, client);
+			replicatedClient.bindMetrics(meterRegistry);
+			client = replicatedClient;
+		}
+
+		return client;
+	}
+}
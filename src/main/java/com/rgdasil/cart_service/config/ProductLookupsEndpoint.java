@@ -0,0 +1,28 @@
+package com.rgdasil.cart_service.config;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import com.rgdasil.cart_service.service.CoalescingProductServiceClient;
+
+/**
+ * Expoe em /actuator/productlookups os produtos com mais buscas agrupadas.
+ */
+@Component
+@Endpoint(id = "productlookups")
+public class ProductLookupsEndpoint {
+
+	private final CoalescingProductServiceClient coalescingProductServiceClient;
+
+	public ProductLookupsEndpoint(CoalescingProductServiceClient coalescingProductServiceClient) {
+		this.coalescingProductServiceClient = coalescingProductServiceClient;
+	}
+
+	@ReadOperation
+	public Map<String, Map<String, Long>> lookups() {
+		return Map.of("coalesced", coalescingProductServiceClient.topCoalesced(50));
+	}
+}
@@ -0,0 +1,64 @@
+package com.rgdasil.cart_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Infraestrutura do perfil {@code reactive}: servidor Netty (event loop) e
+ * {@link WebClient}s nao bloqueantes para o auth-service e o product-service,
+ * com os mesmos limites de {@code http.client.*}.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+
+	// Sem isto o Tomcat (que tambem esta no classpath) seria escolhido
+	@Bean
+	public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+		return new NettyReactiveWebServerFactory();
+	}
+
+	@Bean
+	public WebClient authWebClient(WebClient.Builder builder, HttpClientProperties properties) {
+		return builder.clone()
+				.clientConnector(connector("auth", properties.getAuth()))
+				.build();
+	}
+
+	@Bean
+	public WebClient productWebClient(WebClient.Builder builder, HttpClientProperties properties,
+			@Value("${service.product.url}") String productServiceUrl) {
+		return builder.clone()
+				.baseUrl(productServiceUrl)
+				.clientConnector(connector("product", properties.getProduct()))
+				.build();
+	}
+
+	private static ReactorClientHttpConnector connector(String name, HttpClientProperties.Client client) {
+		ConnectionProvider provider = ConnectionProvider.builder(name)
+				.maxConnections(client.getMaxConnections())
+				.pendingAcquireTimeout(client.getPoolAcquireTimeout())
+				.maxIdleTime(client.getKeepAlive())
+				.metrics(true)
+				.build();
+
+		HttpClient httpClient = HttpClient.create(provider)
+				.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) client.getConnectTimeout().toMillis())
+				.responseTimeout(client.getReadTimeout());
+
+		if (client.getProtocol() == HttpClientProperties.Protocol.HTTP_2) {
+			httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+		}
+		return new ReactorClientHttpConnector(httpClient);
+	}
+}
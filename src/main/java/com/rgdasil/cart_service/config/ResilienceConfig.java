@@ -0,0 +1,56 @@
+package com.rgdasil.cart_service.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.rgdasil.cart_service.resilience.AdaptiveConcurrencyLimiter;
+import com.rgdasil.cart_service.resilience.DependencyGuard;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Isolamento das dependencias: limites adaptativos de concorrencia e os
+ * {@link DependencyGuard} das chamadas feitas fora dos aspectos. Circuit breakers,
+ * bulkheads e time limiters sao configurados em {@code resilience4j.*}.
+ */
+@Configuration
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+public class ResilienceConfig {
+
+	@Bean
+	public AdaptiveConcurrencyLimiter productConcurrencyLimiter(ConcurrencyLimitProperties properties,
+			MeterRegistry meterRegistry) {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("product", properties.getProduct());
+		limiter.bindMetrics(meterRegistry);
+		return limiter;
+	}
+
+	@Bean
+	public AdaptiveConcurrencyLimiter authConcurrencyLimiter(ConcurrencyLimitProperties properties,
+			MeterRegistry meterRegistry) {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("auth", properties.getAuth());
+		limiter.bindMetrics(meterRegistry);
+		return limiter;
+	}
+
+	@Bean
+	public DependencyGuard authServiceGuard(CircuitBreakerRegistry circuitBreakerRegistry,
+			BulkheadRegistry bulkheadRegistry,
+			@Qualifier("authConcurrencyLimiter") AdaptiveConcurrencyLimiter authConcurrencyLimiter) {
+		return new DependencyGuard(circuitBreakerRegistry.circuitBreaker("authService"),
+				bulkheadRegistry.bulkhead("authService"), authConcurrencyLimiter);
+	}
+
+	// Lookups individuais feitos por dentro do getProductsByIds, que ja segura uma permissao
+	// do bulkhead productService e ja passa pelo circuit breaker: bulkhead proprio para nao
+	// disputar permissoes com a busca externa e sem circuit breaker para nao contar a mesma
+	// chamada duas vezes. Sem limitador: o getProductById ja passa pelo productConcurrencyLimiter
+	@Bean
+	public DependencyGuard productServiceGuard(BulkheadRegistry bulkheadRegistry) {
+		return new DependencyGuard(null, bulkheadRegistry.bulkhead("productServiceFallback"), null);
+	}
+}
@@ -2,23 +2,30 @@ package com.rgdasil.cart_service.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.rgdasil.cart_service.controller.AdmissionControlInterceptor;
 import com.rgdasil.cart_service.security.JwtAuthInterceptor;
 
 @Configuration
+@Profile("!reactive")
 public class WebConfig implements WebMvcConfigurer {
 
 	private JwtAuthInterceptor jwtAuthInterceptor;
+	private AdmissionControlInterceptor admissionControlInterceptor;
 	
 	@Autowired
-	public WebConfig(JwtAuthInterceptor jwtAuthInterceptor) {
+	public WebConfig(JwtAuthInterceptor jwtAuthInterceptor, AdmissionControlInterceptor admissionControlInterceptor) {
 		this.jwtAuthInterceptor = jwtAuthInterceptor;
+		this.admissionControlInterceptor = admissionControlInterceptor;
 	}
 	
 	@Override
 	public void addInterceptors(InterceptorRegistry registry) {
+		// A admissao vem antes da autenticacao: requisicao descartada nao chega ao auth-service
+		registry.addInterceptor(admissionControlInterceptor).addPathPatterns("/cart/**");
 		registry.addInterceptor(jwtAuthInterceptor).addPathPatterns("/cart/**");
 	}
 
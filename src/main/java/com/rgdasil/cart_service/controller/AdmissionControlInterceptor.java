@@ -0,0 +1,209 @@
+package com.rgdasil.cart_service.controller;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Controle de admissao na frente dos handlers de {@code /cart/**}. Limita as
+ * requisicoes em andamento; quem nao consegue vaga em {@code max-queue-time}
+ * recebe 503 com {@code Retry-After} na hora, em vez de esperar ate o cliente
+ * desistir. A classe de menor prioridade (escritas, com {@code priority=reads})
+ * so usa uma fracao das vagas, deixando o restante para a outra. Requisicoes
+ * cujo deadline do cliente ja passou sao descartadas com 504.
+ */
+@Component
+@Profile("!reactive")
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+
+	public enum Priority {
+		READS, WRITES, NONE
+	}
+
+	// Guarda se a requisicao admitida tambem ocupou uma vaga da classe de menor prioridade
+	private static final String LOW_PRIORITY_ATTRIBUTE = AdmissionControlInterceptor.class.getName()
+			+ ".lowPriority";
+
+	private static final Logger log = LoggerFactory.getLogger(AdmissionControlInterceptor.class);
+
+	private final boolean enabled;
+	private final int maxInFlight;
+	private final long maxQueueTimeNanos;
+	private final Priority priority;
+	private final String retryAfterSeconds;
+	private final String deadlineHeader;
+
+	private final Semaphore permits;
+	private final Semaphore lowPriorityPermits;
+
+	private final MeterRegistry meterRegistry;
+	private final Timer readQueueTime;
+	private final Timer writeQueueTime;
+
+	@Autowired
+	public AdmissionControlInterceptor(@Value("${cart.admission.enabled:true}") boolean enabled,
+			@Value("${cart.admission.max-in-flight:150}") int maxInFlight,
+			@Value("${cart.admission.max-queue-time:50ms}") Duration maxQueueTime,
+			@Value("${cart.admission.priority:reads}") String priority,
+			@Value("${cart.admission.low-priority-share:0.8}") double lowPriorityShare,
+			@Value("${cart.admission.retry-after:1s}") Duration retryAfter,
+			@Value("${cart.admission.deadline-header:X-Request-Deadline}") String deadlineHeader,
+			ObjectProvider<MeterRegistry> meterRegistry) {
+		this.enabled = enabled;
+		this.maxInFlight = maxInFlight;
+		this.maxQueueTimeNanos = maxQueueTime.toNanos();
+		this.priority = Priority.valueOf(priority.trim().toUpperCase(Locale.ROOT));
+		this.retryAfterSeconds = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+		this.deadlineHeader = deadlineHeader;
+		this.permits = new Semaphore(maxInFlight);
+		this.lowPriorityPermits = new Semaphore(Math.max(1, (int) (maxInFlight * lowPriorityShare)));
+
+		this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+		Gauge.builder("cart.admission.in-flight", this, AdmissionControlInterceptor::getInFlight)
+				.description("Cart requests admitted and not yet completed")
+				.register(this.meterRegistry);
+		this.readQueueTime = queueTimer("read");
+		this.writeQueueTime = queueTimer("write");
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+			throws Exception {
+		if (!enabled) {
+			return true;
+		}
+
+		boolean read = isRead(request);
+		if (deadlinePassed(request)) {
+			return shedExpired(response, read);
+		}
+
+		boolean lowPriority = (priority == Priority.READS && !read) || (priority == Priority.WRITES && read);
+		long start = System.nanoTime();
+		if (!acquire(lowPriority)) {
+			return shedOverloaded(response, read);
+		}
+		(read ? readQueueTime : writeQueueTime).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+		// O deadline pode ter vencido enquanto a requisicao esperava vaga
+		if (deadlinePassed(request)) {
+			release(lowPriority);
+			return shedExpired(response, read);
+		}
+
+		request.setAttribute(LOW_PRIORITY_ATTRIBUTE, lowPriority);
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		if (request.getAttribute(LOW_PRIORITY_ATTRIBUTE) instanceof Boolean lowPriority) {
+			request.removeAttribute(LOW_PRIORITY_ATTRIBUTE);
+			release(lowPriority);
+		}
+	}
+
+	public int getInFlight() {
+		return maxInFlight - permits.availablePermits();
+	}
+
+	private boolean acquire(boolean lowPriority) {
+		try {
+			if (!lowPriority) {
+				return permits.tryAcquire(maxQueueTimeNanos, TimeUnit.NANOSECONDS);
+			}
+			long deadline = System.nanoTime() + maxQueueTimeNanos;
+			if (!lowPriorityPermits.tryAcquire(maxQueueTimeNanos, TimeUnit.NANOSECONDS)) {
+				return false;
+			}
+			if (!permits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+				lowPriorityPermits.release();
+				return false;
+			}
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private void release(boolean lowPriority) {
+		permits.release();
+		if (lowPriority) {
+			lowPriorityPermits.release();
+		}
+	}
+
+	/**
+	 * Deadline absoluto do cliente, em epoch millis. Cabecalho ausente ou
+	 * invalido significa sem deadline.
+	 */
+	private boolean deadlinePassed(HttpServletRequest request) {
+		String deadline = request.getHeader(deadlineHeader);
+		if (deadline == null || deadline.isBlank()) {
+			return false;
+		}
+		try {
+			return System.currentTimeMillis() >= Long.parseLong(deadline.trim());
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	private boolean shedOverloaded(HttpServletResponse response, boolean read) throws IOException {
+		shedCounter("capacity", read).increment();
+		log.warn("Shedding {} request: {} requests in flight", read ? "read" : "write", getInFlight());
+		response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+		response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+		response.getWriter().write("Service overloaded, retry later");
+		return false;
+	}
+
+	private boolean shedExpired(HttpServletResponse response, boolean read) throws IOException {
+		shedCounter("deadline", read).increment();
+		response.setStatus(HttpServletResponse.SC_GATEWAY_TIMEOUT);
+		response.getWriter().write("Request deadline exceeded");
+		return false;
+	}
+
+	private Counter shedCounter(String reason, boolean read) {
+		return Counter.builder("cart.admission.shed")
+				.description("Cart requests rejected by admission control")
+				.tag("reason", reason)
+				.tag("class", read ? "read" : "write")
+				.register(meterRegistry);
+	}
+
+	private Timer queueTimer(String requestClass) {
+		return Timer.builder("cart.admission.queue")
+				.description("Time a cart request waited for an admission slot")
+				.tag("class", requestClass)
+				.register(meterRegistry);
+	}
+
+	private static boolean isRead(HttpServletRequest request) {
+		return HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+	}
+}
@@ -1,26 +1,43 @@
 package com.rgdasil.cart_service.controller;
 
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.rgdasil.cart_service.domain.Cart;
 import com.rgdasil.cart_service.dto.AddItemRequest;
+import com.rgdasil.cart_service.dto.BulkAddItemsResponse;
+import com.rgdasil.cart_service.dto.MergeCartRequest;
+import com.rgdasil.cart_service.dto.UpdateItemQuantityRequest;
+import com.rgdasil.cart_service.exception.CartOwnershipException;
+import com.rgdasil.cart_service.security.JwtAuthInterceptor;
 import com.rgdasil.cart_service.service.RestCartService;
 
 @RestController
 @RequestMapping("/cart")
+@Profile("!reactive")
 public class CartController {
 
 	@Autowired
 	private RestCartService cartService;
 
+	@Autowired
+	private JwtAuthInterceptor jwtAuthInterceptor;
+
 	@RequestMapping(value = "/test")
 	public String test() {
 		return "Cart Service is up!";
@@ -33,9 +50,57 @@ public class CartController {
 		return ResponseEntity.ok(cartService.addItemToCart(userId, addItemRequest));
 	}
 
+	@PostMapping("/items")
+	public ResponseEntity<BulkAddItemsResponse> addItemsToCart(@RequestAttribute(value = "userId") String userId,
+			@RequestBody List<AddItemRequest> addItemRequests) {
+
+		return ResponseEntity.ok(cartService.addItemsToCart(userId, addItemRequests));
+	}
+
+	@PutMapping("/items/{productId}")
+	public ResponseEntity<Cart> updateItemQuantity(@RequestAttribute(value = "userId") String userId,
+			@PathVariable String productId, @RequestBody UpdateItemQuantityRequest request) {
+
+		return ResponseEntity.ok(cartService.updateItemQuantity(userId, productId, request.getQuantity()));
+	}
+
+	@DeleteMapping("/items/{productId}")
+	public ResponseEntity<Cart> removeItem(@RequestAttribute(value = "userId") String userId,
+			@PathVariable String productId) {
+
+		return ResponseEntity.ok(cartService.removeItem(userId, productId));
+	}
+
+	@PostMapping("/merge")
+	public ResponseEntity<Cart> mergeCart(@RequestAttribute(value = "userId") String userId,
+			@RequestBody MergeCartRequest request) {
+
+		// O id do carrinho de convidado nao prova nada: o dono e quem tem o token da sessao de convidado
+		String guestCartId = Optional.ofNullable(request.getSourceCartToken())
+				.flatMap(jwtAuthInterceptor::authenticate)
+				.orElseThrow(() -> new CartOwnershipException("A valid guest session token is required to merge a guest cart."));
+		if (request.getSourceCartId() != null && !request.getSourceCartId().equals(guestCartId)) {
+			throw new CartOwnershipException("The guest session token does not own cart " + request.getSourceCartId());
+		}
+		return ResponseEntity.ok(cartService.mergeCart(userId, guestCartId));
+	}
+
 	@GetMapping
-	public ResponseEntity<Cart> getCart(@RequestAttribute(value = "userId") String userId) {
-		return ResponseEntity.ok(cartService.getCart(userId));
+	public ResponseEntity<Cart> getCart(@RequestAttribute(value = "userId") String userId, WebRequest webRequest) {
+		// Com If-None-Match, so a versao e lida do Redis; o carrinho nao e carregado
+		if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+			Optional<Long> version = cartService.getCartVersion(userId);
+			if (version.isPresent() && webRequest.checkNotModified(String.valueOf(version.get()))) {
+				return null; // 304 ja preenchido pelo checkNotModified
+			}
+		}
+
+		Cart cart = cartService.getCart(userId);
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+		if (cart.getVersion() != null) {
+			response.eTag(String.valueOf(cart.getVersion()));
+		}
+		return response.body(cart);
 	}
 
 	@DeleteMapping
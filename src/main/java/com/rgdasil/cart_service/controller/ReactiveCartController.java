@@ -0,0 +1,61 @@
+package com.rgdasil.cart_service.controller;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.rgdasil.cart_service.domain.Cart;
+import com.rgdasil.cart_service.dto.AddItemRequest;
+import com.rgdasil.cart_service.dto.BulkAddItemsResponse;
+import com.rgdasil.cart_service.service.ReactiveCartService;
+
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/cart")
+@Profile("reactive")
+public class ReactiveCartController {
+
+	private final ReactiveCartService cartService;
+
+	public ReactiveCartController(ReactiveCartService cartService) {
+		this.cartService = cartService;
+	}
+
+	@RequestMapping(value = "/test")
+	public Mono<String> test() {
+		return Mono.just("Cart Service is up!");
+	}
+
+	@PostMapping
+	public Mono<ResponseEntity<Cart>> addItemToCart(@RequestAttribute(value = "userId") String userId,
+			@RequestBody AddItemRequest addItemRequest) {
+
+		return cartService.addItemToCart(userId, addItemRequest).map(ResponseEntity::ok);
+	}
+
+	@PostMapping("/items")
+	public Mono<ResponseEntity<BulkAddItemsResponse>> addItemsToCart(@RequestAttribute(value = "userId") String userId,
+			@RequestBody List<AddItemRequest> addItemRequests) {
+
+		return cartService.addItemsToCart(userId, addItemRequests).map(ResponseEntity::ok);
+	}
+
+	@GetMapping
+	public Mono<ResponseEntity<Cart>> getCart(@RequestAttribute(value = "userId") String userId) {
+		return cartService.getCart(userId).map(ResponseEntity::ok);
+	}
+
+	@DeleteMapping
+	public Mono<ResponseEntity<Cart>> deleteCart(@RequestAttribute(value = "userId") String userId) {
+		return cartService.deleteCart(userId).then(Mono.just(ResponseEntity.noContent().build()));
+	}
+}
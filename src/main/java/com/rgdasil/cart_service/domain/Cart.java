@@ -1,41 +1,133 @@
 package com.rgdasil.cart_service.domain;
 
+import java.math.BigDecimal;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.PersistenceCreator;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.redis.core.RedisHash;
 import org.springframework.data.redis.core.TimeToLive;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.AccessLevel;
 import lombok.Builder;
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
+/**
+ * Carrinho com totais mantidos incrementalmente: cada alteracao de item
+ * ajusta {@code totalPriceCents} e {@code itemCount}, em vez de percorrer os
+ * itens a cada leitura. Por isso os itens so mudam pelos metodos do carrinho.
+ */
 @RedisHash("carts")
-@Data
-@Builder
+@Getter
+@ToString
+@EqualsAndHashCode
 public class Cart {
 	
+	public static final long DEFAULT_EXPIRATION_DAYS = 7L;
+	
 	@Id
+	@Setter
 	private String userId;
 	
-	@Builder.Default
-	private Map<String, CartItem> items = new HashMap<>();
+	@Getter(AccessLevel.NONE)
+	private final Map<String, CartItem> items;
 	
 	@TimeToLive(unit = TimeUnit.DAYS)
-	@Builder.Default
-	private Long expiration = 7L;
+	@Setter
+	private Long expiration;
+	
+	// Avanca a cada mutacao; o GET /cart a devolve como ETag
+	@JsonIgnore
+	@Setter
+	private Long version;
+	
+	@Transient
+	@JsonIgnore
+	@EqualsAndHashCode.Exclude
+	private long totalPriceCents;
+	
+	@Transient
+	@EqualsAndHashCode.Exclude
+	private int itemCount;
+	
+	@Builder
+	@PersistenceCreator
+	public Cart(String userId, Map<String, CartItem> items, Long expiration, Long version) {
+		this.userId = userId;
+		this.items = new HashMap<>();
+		this.expiration = expiration != null ? expiration : DEFAULT_EXPIRATION_DAYS;
+		this.version = version;
+		if (items != null) {
+			items.values().forEach(this::putItem);
+		}
+	}
+	
+	public Map<String, CartItem> getItems() {
+		return Collections.unmodifiableMap(items);
+	}
+	
+	public BigDecimal getTotalPrice() {
+		return Money.toDecimal(totalPriceCents);
+	}
+	
+	/**
+	 * Soma o item ao carrinho; se o produto ja existe, so a quantidade muda.
+	 */
+	public void addItem(CartItem item) {
+		CartItem existingItem = items.get(item.getProductId());
+		putItem(existingItem != null ? existingItem.withQuantity(existingItem.getQuantity() + item.getQuantity()) : item);
+	}
+	
+	/**
+	 * Define a quantidade de um item que ja esta no carrinho; zero o remove.
+	 * Retorna false quando o produto nao esta no carrinho.
+	 */
+	public boolean setItemQuantity(String productId, int quantity) {
+		CartItem existingItem = items.get(productId);
+		if (existingItem == null) {
+			return false;
+		}
+		if (quantity <= 0) {
+			return removeItem(productId);
+		}
+		putItem(existingItem.withQuantity(quantity));
+		return true;
+	}
 	
+	public boolean removeItem(String productId) {
+		CartItem removed = items.remove(productId);
+		if (removed == null) {
+			return false;
+		}
+		totalPriceCents -= removed.getSubtotalCents();
+		itemCount -= removed.getQuantity();
+		return true;
+	}
 	
-	public Double getTotalPrice() {
-		return items.values().stream()
-				.mapToDouble(item -> item.getPrice() * item.getQuantity())
-				.sum();
+	/**
+	 * Um carrinho novo comeca no instante atual em milissegundos, para que um
+	 * carrinho recriado depois de apagado nunca repita a versao do anterior.
+	 */
+	public void incrementVersion() {
+		version = version != null ? version + 1 : System.currentTimeMillis();
 	}
 	
-	public Integer getItemCount() {
-		return items.values().stream()
-				.mapToInt(CartItem::getQuantity)
-				.sum();
+	private void putItem(CartItem item) {
+		CartItem previous = items.put(item.getProductId(), item);
+		if (previous != null) {
+			totalPriceCents -= previous.getSubtotalCents();
+			itemCount -= previous.getQuantity();
+		}
+		totalPriceCents += item.getSubtotalCents();
+		itemCount += item.getQuantity();
 	}
 }
@@ -1,23 +1,66 @@
 package com.rgdasil.cart_service.domain;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
 
-import lombok.AllArgsConstructor;
+import org.springframework.data.annotation.PersistenceCreator;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.AccessLevel;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 
-@Data
-@AllArgsConstructor
-@NoArgsConstructor
-@Builder
+/**
+ * Item imutavel do carrinho; o {@link Cart} troca o item inteiro quando a
+ * quantidade muda, mantendo os totais em dia. Precos ficam em centavos.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
 public class CartItem implements Serializable {
 	
 	private static final long serialVersionUID = 132099127463836025L;
 	
-	private String productId;
-	private String productName;
-	private Integer quantity;
-	private Double price;
+	private final String productId;
+	private final String productName;
+	private final int quantity;
+	
+	@JsonIgnore
+	private final long priceCents;
+	
+	// Preco decimal gravado antes dos centavos. So e lido de carrinhos antigos;
+	// depois da conversao fica nulo e some na proxima gravacao.
+	@Getter(AccessLevel.NONE)
+	private final Double price;
+	
+	/**
+	 * @param priceCents preco unitario em centavos
+	 * @param price      preco unitario decimal, usado quando {@code priceCents} nao e informado
+	 */
+	@Builder(toBuilder = true)
+	@PersistenceCreator
+	public CartItem(String productId, String productName, Integer quantity, Long priceCents, Double price) {
+		this.productId = productId;
+		this.productName = productName;
+		this.quantity = quantity != null ? quantity : 0;
+		this.priceCents = priceCents != null ? priceCents : price != null ? Money.toCents(price) : 0L;
+		this.price = null;
+	}
+	
+	public BigDecimal getPrice() {
+		return Money.toDecimal(priceCents);
+	}
+	
+	@JsonIgnore
+	public long getSubtotalCents() {
+		return priceCents * quantity;
+	}
+	
+	public CartItem withQuantity(int quantity) {
+		return toBuilder().quantity(quantity).build();
+	}
 
 }
@@ -0,0 +1,36 @@
+package com.rgdasil.cart_service.domain;
+
+import java.util.Locale;
+
+/**
+ * Quantidade resultante quando o mesmo produto esta nos dois carrinhos de um
+ * merge. Os scripts Lua de merge seguem as mesmas regras, pelo {@link #code()}.
+ */
+public enum CartMergePolicy {
+
+	/** Soma as duas quantidades. */
+	SUM,
+	/** Fica a maior das duas. */
+	MAX,
+	/** Fica a quantidade do carrinho de origem (convidado). */
+	SOURCE,
+	/** Fica a quantidade que o usuario ja tinha. */
+	TARGET;
+
+	public int merge(int targetQuantity, int sourceQuantity) {
+		return switch (this) {
+			case SUM -> targetQuantity + sourceQuantity;
+			case MAX -> Math.max(targetQuantity, sourceQuantity);
+			case SOURCE -> sourceQuantity;
+			case TARGET -> targetQuantity;
+		};
+	}
+
+	public String code() {
+		return name().toLowerCase(Locale.ROOT);
+	}
+
+	public static CartMergePolicy from(String value) {
+		return valueOf(value.trim().toUpperCase(Locale.ROOT));
+	}
+}
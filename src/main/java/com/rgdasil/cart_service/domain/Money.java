@@ -0,0 +1,24 @@
+package com.rgdasil.cart_service.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversao entre valores decimais (API, product-service) e centavos, a
+ * representacao usada no carrinho.
+ */
+public final class Money {
+
+	private static final int SCALE = 2;
+
+	private Money() {
+	}
+
+	public static long toCents(double amount) {
+		return BigDecimal.valueOf(amount).setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+	}
+
+	public static BigDecimal toDecimal(long cents) {
+		return BigDecimal.valueOf(cents, SCALE);
+	}
+}
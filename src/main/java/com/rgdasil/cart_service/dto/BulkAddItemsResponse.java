@@ -0,0 +1,19 @@
+package com.rgdasil.cart_service.dto;
+
+import java.util.List;
+
+import com.rgdasil.cart_service.domain.Cart;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkAddItemsResponse {
+
+	private Cart cart;
+	private List<ItemResult> results;
+
+}
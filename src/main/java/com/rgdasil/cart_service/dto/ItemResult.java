@@ -0,0 +1,23 @@
+package com.rgdasil.cart_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemResult {
+
+	public enum Status {
+		ADDED, NOT_FOUND, INVALID
+	}
+
+	private String productId;
+	private Integer quantity;
+	private Status status;
+	private String message;
+
+}
@@ -0,0 +1,14 @@
+package com.rgdasil.cart_service.dto;
+
+import lombok.Data;
+
+@Data
+public class MergeCartRequest {
+
+	// ID do carrinho de convidado que sera juntado ao carrinho do usuario autenticado
+	private String sourceCartId;
+	
+	// Token da sessao de convidado: prova que quem pede o merge e dono do carrinho de origem
+	private String sourceCartToken;
+	
+}
@@ -0,0 +1,10 @@
+package com.rgdasil.cart_service.dto;
+
+import lombok.Data;
+
+@Data
+public class UpdateItemQuantityRequest {
+
+	private Integer quantity;
+	
+}
@@ -0,0 +1,15 @@
+package com.rgdasil.cart_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.FORBIDDEN)
+public class CartOwnershipException extends RuntimeException {
+
+	private static final long serialVersionUID = 4719065230855872013L;
+
+	public CartOwnershipException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,15 @@
+package com.rgdasil.cart_service.exception;
+
+/**
+ * A dependencia ja tem o maximo de chamadas em andamento permitido pelo
+ * limite adaptativo. Responde 503, como as demais indisponibilidades.
+ */
+public class ConcurrencyLimitExceededException extends ServiceUnavailableException {
+
+	private static final long serialVersionUID = -3216940786014253618L;
+
+	public ConcurrencyLimitExceededException(String message) {
+		super(message);
+	}
+
+}
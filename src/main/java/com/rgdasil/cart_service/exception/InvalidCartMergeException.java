@@ -0,0 +1,15 @@
+package com.rgdasil.cart_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCartMergeException extends RuntimeException {
+
+	private static final long serialVersionUID = -2613780244960325148L;
+
+	public InvalidCartMergeException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,15 @@
+package com.rgdasil.cart_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidQuantityException extends RuntimeException {
+
+	private static final long serialVersionUID = 4170598036251743309L;
+
+	public InvalidQuantityException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.rgdasil.cart_service.metrics;
+
+import org.springframework.stereotype.Component;
+
+import com.rgdasil.cart_service.domain.Cart;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Latencia de cada salto de uma requisicao (auth-service, product-service,
+ * leituras e escritas no Redis) num unico timer {@code cart.hop}, com as tags
+ * {@code hop}, {@code operation} e {@code outcome}. Todas as series levam as
+ * tres tags (o Prometheus exige o mesmo conjunto por nome). Histogramas e
+ * buckets de SLO sao ligados por {@code management.metrics.distribution.*}.
+ */
+@Component
+public class HopMetrics {
+
+	public static final String HOP_TIMER = "cart.hop";
+
+	public static final String AUTH = "auth";
+	public static final String PRODUCT = "product";
+	public static final String PRODUCT_BATCH = "product-batch";
+	public static final String NEAR_CACHE = "near-cache";
+	public static final String REDIS_READ = "redis-read";
+	public static final String REDIS_WRITE = "redis-write";
+
+	private final MeterRegistry meterRegistry;
+	private final DistributionSummary cartItems;
+	private final DistributionSummary cartLines;
+
+	public HopMetrics(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+		this.cartItems = DistributionSummary.builder("cart.size.items")
+				.description("Units in the cart (sum of quantities) after each read or write")
+				.baseUnit("items")
+				.register(meterRegistry);
+		this.cartLines = DistributionSummary.builder("cart.size.lines")
+				.description("Distinct products in the cart after each read or write")
+				.baseUnit("products")
+				.register(meterRegistry);
+	}
+
+	public Timer.Sample start() {
+		return Timer.start(meterRegistry);
+	}
+
+	public void stop(Timer.Sample sample, String hop, String operation, String outcome) {
+		sample.stop(timer(hop, operation, outcome));
+	}
+
+	public Timer timer(String hop, String operation, String outcome) {
+		return Timer.builder(HOP_TIMER)
+				.description("Latency of each hop of a request, by dependency and outcome")
+				.tag("hop", hop)
+				.tag("operation", operation)
+				.tag("outcome", outcome)
+				.register(meterRegistry);
+	}
+
+	public void recordCartSize(Cart cart) {
+		cartItems.record(cart.getItemCount());
+		cartLines.record(cart.getItems().size());
+	}
+}
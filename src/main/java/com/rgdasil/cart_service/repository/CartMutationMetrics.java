@@ -0,0 +1,46 @@
+package com.rgdasil.cart_service.repository;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Contadores das mutacoes atomicas, compartilhados pelos layouts de
+ * armazenamento.
+ */
+@Component
+public class CartMutationMetrics {
+
+	private final MeterRegistry meterRegistry;
+	private final Counter concurrentMutations;
+	// Mutacoes em andamento por usuario; a entrada sai do mapa quando chega a zero
+	private final ConcurrentHashMap<String, Integer> inFlight = new ConcurrentHashMap<>();
+
+	public CartMutationMetrics(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+		this.concurrentMutations = Counter.builder("cart.mutation.contention")
+				.description("Mutations that found another mutation in flight for the same cart on this instance")
+				.register(meterRegistry);
+	}
+
+	public <T> T record(String operation, String userId, Supplier<T> mutation) {
+		// Incremento e decremento dentro do compute: a remocao nunca descarta uma contagem em uso
+		if (inFlight.compute(userId, (id, count) -> count == null ? 1 : count + 1) > 1) {
+			concurrentMutations.increment();
+		}
+		String outcome = "success";
+		try {
+			return mutation.get();
+		} catch (RuntimeException e) {
+			outcome = "error";
+			throw e;
+		} finally {
+			inFlight.compute(userId, (id, count) -> count == null || count <= 1 ? null : count - 1);
+			meterRegistry.counter("cart.mutations", "operation", operation, "outcome", outcome).increment();
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.rgdasil.cart_service.repository;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+import com.rgdasil.cart_service.domain.Cart;
+import com.rgdasil.cart_service.domain.CartItem;
+import com.rgdasil.cart_service.domain.CartMergePolicy;
+
+/**
+ * Operacoes executadas no proprio Redis, sem ler e regravar o carrinho
+ * inteiro. As mutacoes sao atomicas e avancam a versao do carrinho.
+ */
+public interface CartOperations {
+
+	/**
+	 * Soma a quantidade de cada item ao carrinho, criando o carrinho e os itens
+	 * que ainda nao existem, e renova o TTL. Retorna o carrinho ja atualizado.
+	 */
+	Cart addItems(String userId, Collection<CartItem> items);
+
+	/**
+	 * Define a quantidade de um produto no carrinho, sem ler o carrinho antes;
+	 * quantidade zero remove o item. {@code newItem} so e usado quando o
+	 * produto ainda nao esta no carrinho (criando o carrinho se preciso). Vazio
+	 * quando o item nao esta no carrinho e {@code newItem} e nulo, ou quando o
+	 * carrinho nao existe.
+	 */
+	Optional<Cart> setItemQuantity(String userId, String productId, int quantity, CartItem newItem);
+
+	/**
+	 * Remove um produto do carrinho. Vazio quando o carrinho nao existe; um
+	 * produto que nao estava no carrinho nao altera nem a versao.
+	 */
+	default Optional<Cart> removeItem(String userId, String productId) {
+		return setItemQuantity(userId, productId, 0, null);
+	}
+
+	/**
+	 * Junta o carrinho {@code sourceUserId} ao de {@code userId} e apaga a
+	 * origem, num unico script. Produtos nos dois carrinhos seguem
+	 * {@code policy}. Com {@code validItems} nao nulo, so os produtos dessa
+	 * lista entram, com o preco e o nome dela. Vazio quando a origem nao
+	 * existe, ou quando nada entrou e o destino nao existe.
+	 */
+	Optional<Cart> mergeCarts(String userId, String sourceUserId, CartMergePolicy policy,
+			Collection<CartItem> validItems);
+
+	/**
+	 * Le so a versao do carrinho, sem carregar os itens. Vazio quando o
+	 * carrinho nao existe ou ainda nao tem versao.
+	 */
+	Optional<Long> getVersion(String userId);
+
+	/**
+	 * Uma pagina da varredura dos carrinhos com {@code SCAN} (nunca
+	 * {@code KEYS}), a partir de {@code cursor}. Os carrinhos da pagina sao
+	 * lidos num unico pipeline.
+	 */
+	CartPage scanCarts(String cursor, int count);
+
+	/**
+	 * Grava precos e nomes corrigidos nos itens indicados, um script por
+	 * carrinho e todos num unico pipeline. Nao renova o TTL e ignora itens
+	 * removidos nesse meio tempo. Retorna quantos itens foram atualizados.
+	 */
+	long repriceItems(Map<String, ? extends Collection<CartItem>> itemsByUserId);
+
+}
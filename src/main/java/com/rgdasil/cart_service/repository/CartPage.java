@@ -0,0 +1,18 @@
+package com.rgdasil.cart_service.repository;
+
+import java.util.List;
+
+import com.rgdasil.cart_service.domain.Cart;
+
+/**
+ * Uma pagina do {@code SCAN} sobre os carrinhos. {@code nextCursor} igual a
+ * {@code "0"} indica que a varredura terminou.
+ */
+public record CartPage(String nextCursor, List<Cart> carts) {
+
+	public static final String START = "0";
+
+	public boolean isLast() {
+		return START.equals(nextCursor);
+	}
+}
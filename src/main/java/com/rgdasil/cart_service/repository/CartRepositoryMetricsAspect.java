@@ -0,0 +1,69 @@
+package com.rgdasil.cart_service.repository;
+
+import java.util.Optional;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import com.rgdasil.cart_service.metrics.HopMetrics;
+
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Mede cada chamada ao Redis feita pelos repositorios e pelas operacoes
+ * atomicas, em qualquer layout. Leituras sao {@code redis-read} com outcome
+ * {@code hit}/{@code miss}; o restante e {@code redis-write}. O metodo entra
+ * na tag {@code operation}.
+ */
+@Aspect
+@Component
+public class CartRepositoryMetricsAspect {
+
+	private final HopMetrics hopMetrics;
+
+	public CartRepositoryMetricsAspect(HopMetrics hopMetrics) {
+		this.hopMetrics = hopMetrics;
+	}
+
+	@Around("execution(public * com.rgdasil.cart_service.repository.CartRepository+.*(..))"
+			+ " || execution(public * com.rgdasil.cart_service.repository.CartOperations+.*(..))")
+	public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+		String operation = joinPoint.getSignature().getName();
+		if (operation.startsWith("is") || isObjectMethod(operation)) {
+			// Flags de configuracao e metodos de Object nao vao ao Redis
+			return joinPoint.proceed();
+		}
+
+		String hop = isRead(operation) ? HopMetrics.REDIS_READ : HopMetrics.REDIS_WRITE;
+		Timer.Sample sample = hopMetrics.start();
+		String outcome = "error";
+		try {
+			Object result = joinPoint.proceed();
+			outcome = outcome(result);
+			return result;
+		} finally {
+			hopMetrics.stop(sample, hop, operation, outcome);
+		}
+	}
+
+	private static boolean isRead(String operation) {
+		return operation.startsWith("find") || operation.startsWith("get") || operation.startsWith("scan")
+				|| operation.startsWith("exists") || operation.equals("count");
+	}
+
+	private static boolean isObjectMethod(String operation) {
+		return operation.equals("toString") || operation.equals("hashCode") || operation.equals("equals");
+	}
+
+	private static String outcome(Object result) {
+		if (result instanceof Optional<?> optional) {
+			return optional.isPresent() ? "hit" : "miss";
+		}
+		if (result instanceof Boolean exists) {
+			return exists ? "hit" : "miss";
+		}
+		return "success";
+	}
+}
@@ -0,0 +1,96 @@
+package com.rgdasil.cart_service.repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.rgdasil.cart_service.domain.Cart;
+import com.rgdasil.cart_service.domain.CartItem;
+
+/**
+ * Formato do layout compacto: um hash {@code cart:<userId>} com um campo por
+ * produto. O valor e {@code quantidade|centavos|nome} (o nome fica por ultimo
+ * porque pode conter o separador). Campos iniciados por {@code @} sao
+ * reservados para metadados do carrinho. Valores gravados antes dos centavos
+ * trazem o preco decimal ({@code 10.0}) e continuam sendo lidos.
+ */
+final class CompactCartCodec {
+
+	static final String KEY_PREFIX = "cart:";
+	static final String META_PREFIX = "@";
+	static final String VERSION_FIELD = META_PREFIX + "version";
+	private static final String SEPARATOR = "|";
+
+	private CompactCartCodec() {
+	}
+
+	static String key(String userId) {
+		return KEY_PREFIX + userId;
+	}
+
+	static String userId(String key) {
+		return key.substring(KEY_PREFIX.length());
+	}
+
+	static String encode(CartItem item) {
+		return item.getQuantity() + SEPARATOR
+				+ item.getPriceCents() + SEPARATOR
+				+ (item.getProductName() != null ? item.getProductName() : "");
+	}
+
+	static CartItem decode(String productId, String value) {
+		String[] parts = value.split("\\|", 3);
+		String price = parts.length > 1 ? parts[1] : "";
+		CartItem.CartItemBuilder item = CartItem.builder()
+				.productId(productId)
+				.quantity(Integer.valueOf(parts[0]))
+				.productName(parts.length > 2 && !parts[2].isEmpty() ? parts[2] : null);
+		if (isLegacyDecimal(price)) {
+			item.price(Double.valueOf(price));
+		} else if (!price.isEmpty()) {
+			item.priceCents(Long.valueOf(price));
+		}
+		return item.build();
+	}
+
+	static Map<String, String> encode(Cart cart) {
+		Map<String, String> fields = new HashMap<>();
+		cart.getItems().values().forEach(item -> fields.put(item.getProductId(), encode(item)));
+		if (cart.getVersion() != null) {
+			fields.put(VERSION_FIELD, String.valueOf(cart.getVersion()));
+		}
+		return fields;
+	}
+
+	static Cart decode(String userId, Map<?, ?> fields) {
+		Map<String, CartItem> items = new HashMap<>();
+		fields.forEach((field, value) -> {
+			String productId = String.valueOf(field);
+			if (!productId.startsWith(META_PREFIX)) {
+				items.put(productId, decode(productId, String.valueOf(value)));
+			}
+		});
+		Object version = fields.get(VERSION_FIELD);
+		return Cart.builder()
+				.userId(userId)
+				.items(items)
+				.version(version != null ? Long.valueOf(version.toString()) : null)
+				.build();
+	}
+
+	/**
+	 * Converte a resposta de um HGETALL devolvido por script ({@code campo, valor, ...}).
+	 */
+	static Cart decode(String userId, List<?> fieldsAndValues) {
+		Map<Object, Object> fields = new HashMap<>();
+		for (int i = 0; i + 1 < fieldsAndValues.size(); i += 2) {
+			fields.put(fieldsAndValues.get(i), fieldsAndValues.get(i + 1));
+		}
+		return decode(userId, fields);
+	}
+
+	// Double.toString sempre gera ponto ou expoente; centavos sao inteiros
+	private static boolean isLegacyDecimal(String price) {
+		return price.indexOf('.') >= 0 || price.indexOf('E') >= 0;
+	}
+}
@@ -0,0 +1,162 @@
+package com.rgdasil.cart_service.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import com.rgdasil.cart_service.domain.Cart;
+import com.rgdasil.cart_service.domain.CartItem;
+import com.rgdasil.cart_service.domain.CartMergePolicy;
+
+/**
+ * {@link CartOperations} sobre o layout compacto ({@link CompactCartRepository}).
+ */
+@Repository
+@ConditionalOnProperty(name = "cart.storage.layout", havingValue = "compact")
+public class CompactCartOperations implements CartOperations {
+
+	@SuppressWarnings("rawtypes")
+	private static final RedisScript<List> ADD_ITEMS = RedisScript
+			.of(new ClassPathResource("scripts/compact/add-items.lua"), List.class);
+
+	@SuppressWarnings("rawtypes")
+	private static final RedisScript<List> SET_QUANTITY = RedisScript
+			.of(new ClassPathResource("scripts/compact/set-quantity.lua"), List.class);
+
+	@SuppressWarnings("rawtypes")
+	private static final RedisScript<List> MERGE = RedisScript
+			.of(new ClassPathResource("scripts/compact/merge.lua"), List.class);
+
+	private static final RedisScript<Long> REPRICE = RedisScript
+			.of(new ClassPathResource("scripts/compact/reprice.lua"), Long.class);
+
+	private static final String TTL_SECONDS = String.valueOf(TimeUnit.DAYS.toSeconds(Cart.DEFAULT_EXPIRATION_DAYS));
+
+	private final StringRedisTemplate redisTemplate;
+	private final CompactCartRepository compactCartRepository;
+	private final CartMutationMetrics mutationMetrics;
+
+	public CompactCartOperations(StringRedisTemplate redisTemplate, CompactCartRepository compactCartRepository,
+			CartMutationMetrics mutationMetrics) {
+		this.redisTemplate = redisTemplate;
+		this.compactCartRepository = compactCartRepository;
+		this.mutationMetrics = mutationMetrics;
+	}
+
+	@Override
+	public Cart addItems(String userId, Collection<CartItem> items) {
+		migrateIfNeeded(userId);
+
+		List<String> args = new ArrayList<>();
+		args.add(TTL_SECONDS);
+		for (CartItem item : items) {
+			args.add(item.getProductId());
+			args.add(item.getProductName() != null ? item.getProductName() : "");
+			args.add(String.valueOf(item.getPriceCents()));
+			args.add(String.valueOf(item.getQuantity()));
+		}
+
+		List<?> result = mutationMetrics.record("add", userId,
+				() -> redisTemplate.execute(ADD_ITEMS, List.of(CompactCartCodec.key(userId)), args.toArray()));
+		return CompactCartCodec.decode(userId, result);
+	}
+
+	@Override
+	public Optional<Cart> setItemQuantity(String userId, String productId, int quantity, CartItem newItem) {
+		migrateIfNeeded(userId);
+
+		List<String> args = List.of(TTL_SECONDS, productId, String.valueOf(quantity),
+				newItem != null && newItem.getProductName() != null ? newItem.getProductName() : "",
+				newItem != null ? String.valueOf(newItem.getPriceCents()) : "");
+
+		List<?> result = mutationMetrics.record(quantity > 0 ? "set-quantity" : "remove", userId,
+				() -> redisTemplate.execute(SET_QUANTITY, List.of(CompactCartCodec.key(userId)), args.toArray()));
+
+		// { -1 }: item ausente sem dados do produto; { 0 }: carrinho inexistente
+		if (result.size() < 2) {
+			return Optional.empty();
+		}
+		return Optional.of(CompactCartCodec.decode(userId, result.subList(1, result.size())));
+	}
+
+	@Override
+	public Optional<Cart> mergeCarts(String userId, String sourceUserId, CartMergePolicy policy,
+			Collection<CartItem> validItems) {
+		migrateIfNeeded(userId);
+		migrateIfNeeded(sourceUserId);
+
+		List<String> args = new ArrayList<>();
+		args.add(TTL_SECONDS);
+		args.add(policy.code());
+		args.add(validItems != null ? "1" : "0");
+		if (validItems != null) {
+			for (CartItem item : validItems) {
+				args.add(item.getProductId());
+				args.add(String.valueOf(item.getPriceCents()));
+				args.add(item.getProductName() != null ? item.getProductName() : "");
+			}
+		}
+
+		List<?> result = mutationMetrics.record("merge", userId,
+				() -> redisTemplate.execute(MERGE,
+						List.of(CompactCartCodec.key(userId), CompactCartCodec.key(sourceUserId)), args.toArray()));
+
+		// { -1 }: origem inexistente; { 0 }: nada entrou e o destino nao existe
+		if (result.size() < 2) {
+			return Optional.empty();
+		}
+		return Optional.of(CompactCartCodec.decode(userId, result.subList(1, result.size())));
+	}
+
+	@Override
+	public Optional<Long> getVersion(String userId) {
+		Object version = redisTemplate.opsForHash().get(CompactCartCodec.key(userId), CompactCartCodec.VERSION_FIELD);
+		return Optional.ofNullable(version).map(value -> Long.valueOf(value.toString()));
+	}
+
+	@Override
+	public CartPage scanCarts(String cursor, int count) {
+		RedisBatchSupport.ScanResult scan = RedisBatchSupport.scan(redisTemplate, cursor,
+				CompactCartCodec.KEY_PREFIX + "*", count);
+		List<Map<String, String>> hashes = RedisBatchSupport.hashes(redisTemplate, scan.keys());
+
+		List<Cart> carts = new ArrayList<>();
+		for (int i = 0; i < scan.keys().size(); i++) {
+			// Vazio: o carrinho expirou ou foi apagado entre o SCAN e a leitura
+			if (!hashes.get(i).isEmpty()) {
+				carts.add(CompactCartCodec.decode(CompactCartCodec.userId(scan.keys().get(i)), hashes.get(i)));
+			}
+		}
+		return new CartPage(scan.nextCursor(), carts);
+	}
+
+	@Override
+	public long repriceItems(Map<String, ? extends Collection<CartItem>> itemsByUserId) {
+		Map<String, Collection<CartItem>> itemsByKey = new LinkedHashMap<>();
+		itemsByUserId.forEach((userId, items) -> itemsByKey.put(CompactCartCodec.key(userId), items));
+		return RedisBatchSupport.reprice(redisTemplate, REPRICE, itemsByKey);
+	}
+
+	/**
+	 * Durante a migracao, traz o carrinho do layout antigo antes de altera-lo.
+	 * Custa um EXISTS extra por mutacao enquanto o dual-read estiver ligado. Duas
+	 * mutacoes podem migrar o mesmo carrinho ao mesmo tempo; a gravacao de
+	 * {@link CompactCartRepository#migrateLegacy} nunca sobrescreve a outra.
+	 */
+	private void migrateIfNeeded(String userId) {
+		if (compactCartRepository.isDualReadEnabled()
+				&& Boolean.FALSE.equals(redisTemplate.hasKey(CompactCartCodec.key(userId)))) {
+			compactCartRepository.migrateLegacy(userId);
+		}
+	}
+}
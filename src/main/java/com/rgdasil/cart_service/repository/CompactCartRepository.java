@@ -0,0 +1,190 @@
+package com.rgdasil.cart_service.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisKeyValueTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import com.rgdasil.cart_service.domain.Cart;
+
+/**
+ * {@link CartRepository} no layout compacto: um unico hash por carrinho, um
+ * campo por produto, {@code EXPIRE} nativo e nenhum indice secundario.
+ *
+ * Com {@code cart.storage.compact.dual-read=true}, carrinhos ainda gravados no
+ * layout antigo do {@code @RedisHash("carts")} sao lidos de la e migrados para
+ * o layout compacto no primeiro acesso.
+ */
+@Repository
+@Primary
+@ConditionalOnProperty(name = "cart.storage.layout", havingValue = "compact")
+public class CompactCartRepository implements CartRepository {
+
+	private static final Logger log = LoggerFactory.getLogger(CompactCartRepository.class);
+
+	private static final RedisScript<Long> SAVE = RedisScript
+			.of(new ClassPathResource("scripts/compact/save.lua"), Long.class);
+
+	private static final RedisScript<Long> MIGRATE = RedisScript
+			.of(new ClassPathResource("scripts/compact/migrate.lua"), Long.class);
+
+	private final StringRedisTemplate redisTemplate;
+	private final RedisKeyValueTemplate legacyTemplate;
+	private final boolean dualRead;
+
+	public CompactCartRepository(StringRedisTemplate redisTemplate, RedisKeyValueTemplate legacyTemplate,
+			@Value("${cart.storage.compact.dual-read:true}") boolean dualRead) {
+		this.redisTemplate = redisTemplate;
+		this.legacyTemplate = legacyTemplate;
+		this.dualRead = dualRead;
+	}
+
+	@Override
+	public <S extends Cart> S save(S cart) {
+		redisTemplate.execute(SAVE, List.of(CompactCartCodec.key(cart.getUserId())), scriptArgs(cart));
+		return cart;
+	}
+
+	@Override
+	public <S extends Cart> Iterable<S> saveAll(Iterable<S> carts) {
+		List<S> saved = new ArrayList<>();
+		carts.forEach(cart -> saved.add(save(cart)));
+		return saved;
+	}
+
+	@Override
+	public Optional<Cart> findById(String userId) {
+		Map<Object, Object> fields = redisTemplate.opsForHash().entries(CompactCartCodec.key(userId));
+		if (!fields.isEmpty()) {
+			return Optional.of(CompactCartCodec.decode(userId, fields));
+		}
+		return dualRead ? migrateLegacy(userId) : Optional.empty();
+	}
+
+	/**
+	 * Move um carrinho do layout antigo para o compacto, se ele existir. A
+	 * gravacao so acontece se a chave compacta ainda nao existir: se outra
+	 * chamada migrou o carrinho primeiro, vale o que ja esta no layout compacto.
+	 */
+	public Optional<Cart> migrateLegacy(String userId) {
+		Optional<Cart> legacy = legacyTemplate.findById(userId, Cart.class);
+		if (legacy.isEmpty()) {
+			return legacy;
+		}
+
+		log.info("Migrating cart {} to compact layout", userId);
+		Long written = redisTemplate.execute(MIGRATE, List.of(CompactCartCodec.key(userId)), scriptArgs(legacy.get()));
+		legacyTemplate.delete(userId, Cart.class);
+		if (Long.valueOf(1).equals(written)) {
+			return legacy;
+		}
+
+		Map<Object, Object> fields = redisTemplate.opsForHash().entries(CompactCartCodec.key(userId));
+		return fields.isEmpty() ? Optional.empty() : Optional.of(CompactCartCodec.decode(userId, fields));
+	}
+
+	public boolean isDualReadEnabled() {
+		return dualRead;
+	}
+
+	@Override
+	public boolean existsById(String userId) {
+		if (Boolean.TRUE.equals(redisTemplate.hasKey(CompactCartCodec.key(userId)))) {
+			return true;
+		}
+		return dualRead && legacyTemplate.findById(userId, Cart.class).isPresent();
+	}
+
+	@Override
+	public Iterable<Cart> findAll() {
+		List<Cart> carts = new ArrayList<>();
+		scanUserIds().forEach(userId -> findById(userId).ifPresent(carts::add));
+		if (dualRead) {
+			legacyTemplate.findAll(Cart.class).forEach(carts::add);
+		}
+		return carts;
+	}
+
+	@Override
+	public Iterable<Cart> findAllById(Iterable<String> userIds) {
+		List<Cart> carts = new ArrayList<>();
+		userIds.forEach(userId -> findById(userId).ifPresent(carts::add));
+		return carts;
+	}
+
+	@Override
+	public long count() {
+		long count = scanUserIds().size();
+		return dualRead ? count + legacyTemplate.count(Cart.class) : count;
+	}
+
+	@Override
+	public void deleteById(String userId) {
+		redisTemplate.delete(CompactCartCodec.key(userId));
+		if (dualRead) {
+			legacyTemplate.delete(userId, Cart.class);
+		}
+	}
+
+	@Override
+	public void delete(Cart cart) {
+		deleteById(cart.getUserId());
+	}
+
+	@Override
+	public void deleteAllById(Iterable<? extends String> userIds) {
+		userIds.forEach(this::deleteById);
+	}
+
+	@Override
+	public void deleteAll(Iterable<? extends Cart> carts) {
+		carts.forEach(this::delete);
+	}
+
+	@Override
+	public void deleteAll() {
+		scanUserIds().forEach(userId -> redisTemplate.delete(CompactCartCodec.key(userId)));
+		if (dualRead) {
+			legacyTemplate.delete(Cart.class);
+		}
+	}
+
+	private List<String> scanUserIds() {
+		List<String> userIds = new ArrayList<>();
+		ScanOptions options = ScanOptions.scanOptions().match(CompactCartCodec.KEY_PREFIX + "*").count(500).build();
+		try (Cursor<String> cursor = redisTemplate.scan(options)) {
+			cursor.forEachRemaining(key -> userIds.add(CompactCartCodec.userId(key)));
+		}
+		return userIds;
+	}
+
+	// TTL seguido dos pares (campo, valor), no formato de save.lua e migrate.lua
+	private static Object[] scriptArgs(Cart cart) {
+		List<String> args = new ArrayList<>();
+		args.add(String.valueOf(ttlSeconds(cart)));
+		CompactCartCodec.encode(cart).forEach((field, value) -> {
+			args.add(field);
+			args.add(value);
+		});
+		return args.toArray();
+	}
+
+	private static long ttlSeconds(Cart cart) {
+		long days = cart.getExpiration() != null ? cart.getExpiration() : Cart.DEFAULT_EXPIRATION_DAYS;
+		return TimeUnit.DAYS.toSeconds(days);
+	}
+}
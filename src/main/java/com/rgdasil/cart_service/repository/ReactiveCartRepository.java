@@ -0,0 +1,142 @@
+package com.rgdasil.cart_service.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.convert.Bucket;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import com.rgdasil.cart_service.domain.Cart;
+import com.rgdasil.cart_service.domain.CartItem;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Acesso reativo aos carrinhos, nos mesmos layouts e com os mesmos scripts
+ * Lua usados pelo lado bloqueante ({@link RedisHashCartOperations} e
+ * {@link CompactCartOperations}). O dual-read do layout compacto nao e
+ * suportado aqui: migre os carrinhos antes de ligar o perfil reativo.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveCartRepository {
+
+	@SuppressWarnings("rawtypes")
+	private static final RedisScript<List> HASH_ADD_ITEMS = RedisScript
+			.of(new ClassPathResource("scripts/redis-hash/add-items.lua"), List.class);
+
+	@SuppressWarnings("rawtypes")
+	private static final RedisScript<List> COMPACT_ADD_ITEMS = RedisScript
+			.of(new ClassPathResource("scripts/compact/add-items.lua"), List.class);
+
+	private static final long TTL_SECONDS = TimeUnit.DAYS.toSeconds(Cart.DEFAULT_EXPIRATION_DAYS);
+
+	private final ReactiveStringRedisTemplate redisTemplate;
+	private final RedisConverter redisConverter;
+	private final boolean compact;
+
+	public ReactiveCartRepository(ReactiveStringRedisTemplate redisTemplate, RedisConverter redisConverter,
+			@Value("${cart.storage.layout:redis-hash}") String layout) {
+		this.redisTemplate = redisTemplate;
+		this.redisConverter = redisConverter;
+		this.compact = "compact".equals(layout);
+	}
+
+	public Mono<Cart> findById(String userId) {
+		return redisTemplate.<String, String>opsForHash()
+				.entries(key(userId))
+				.collectMap(Map.Entry::getKey, Map.Entry::getValue)
+				.filter(fields -> !fields.isEmpty())
+				.map(fields -> compact ? CompactCartCodec.decode(userId, fields) : fromHash(userId, fields));
+	}
+
+	public Mono<Cart> addItems(String userId, Collection<CartItem> items) {
+		List<String> args = new ArrayList<>();
+		if (!compact) {
+			args.add(userId);
+			args.add(Cart.class.getName());
+			args.add(String.valueOf(Cart.DEFAULT_EXPIRATION_DAYS));
+		}
+		args.add(String.valueOf(TTL_SECONDS));
+		for (CartItem item : items) {
+			args.add(item.getProductId());
+			args.add(item.getProductName() != null ? item.getProductName() : "");
+			args.add(String.valueOf(item.getPriceCents()));
+			args.add(String.valueOf(item.getQuantity()));
+		}
+
+		Mono<List<Object>> result = redisTemplate
+				.execute(compact ? COMPACT_ADD_ITEMS : HASH_ADD_ITEMS, List.of(key(userId)), args)
+				.collectList()
+				.map(ReactiveCartRepository::flatten);
+
+		if (compact) {
+			return result.map(fieldsAndValues -> CompactCartCodec.decode(userId, fieldsAndValues));
+		}
+		return result.flatMap(fieldsAndValues -> {
+			Cart cart = fromHash(userId, toMap(fieldsAndValues.subList(1, fieldsAndValues.size())));
+			// Mantem o indice do @RedisHash quando o script criou o carrinho
+			return Long.valueOf(1L).equals(fieldsAndValues.get(0))
+					? redisTemplate.opsForSet().add(RedisHashCartOperations.KEYSPACE, userId).thenReturn(cart)
+					: Mono.just(cart);
+		});
+	}
+
+	public Mono<Void> deleteById(String userId) {
+		Mono<Long> delete = redisTemplate.delete(key(userId));
+		if (!compact) {
+			delete = delete.then(redisTemplate.opsForSet().remove(RedisHashCartOperations.KEYSPACE, userId));
+		}
+		return delete.then();
+	}
+
+	private String key(String userId) {
+		return compact ? CompactCartCodec.key(userId) : RedisHashCartOperations.key(userId);
+	}
+
+	private Cart fromHash(String userId, Map<String, String> fields) {
+		Map<byte[], byte[]> raw = new LinkedHashMap<>();
+		fields.forEach((field, value) -> raw.put(field.getBytes(StandardCharsets.UTF_8),
+				value.getBytes(StandardCharsets.UTF_8)));
+		RedisData data = new RedisData(Bucket.newBucketFromRawMap(raw));
+		data.setId(userId);
+		data.setKeyspace(RedisHashCartOperations.KEYSPACE);
+		return redisConverter.read(Cart.class, data);
+	}
+
+	private static Map<String, String> toMap(List<Object> fieldsAndValues) {
+		Map<String, String> fields = new LinkedHashMap<>();
+		for (int i = 0; i + 1 < fieldsAndValues.size(); i += 2) {
+			fields.put(String.valueOf(fieldsAndValues.get(i)), String.valueOf(fieldsAndValues.get(i + 1)));
+		}
+		return fields;
+	}
+
+	/**
+	 * O driver reativo pode emitir a resposta multi-bulk do script elemento a
+	 * elemento ou como uma unica lista; normaliza para a lista plana.
+	 */
+	private static List<Object> flatten(List<?> emitted) {
+		List<Object> flat = new ArrayList<>();
+		for (Object element : emitted) {
+			if (element instanceof List<?> nested) {
+				flat.addAll(nested);
+			} else {
+				flat.add(element);
+			}
+		}
+		return flat;
+	}
+}
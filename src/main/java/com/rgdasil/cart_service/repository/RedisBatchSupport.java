@@ -0,0 +1,91 @@
+package com.rgdasil.cart_service.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import com.rgdasil.cart_service.domain.CartItem;
+
+/**
+ * Varredura e escrita em lote usadas pelas operacoes de manutencao dos dois
+ * layouts: {@code SCAN} paginado com cursor retomavel, {@code HGETALL} e
+ * scripts em pipeline.
+ */
+final class RedisBatchSupport {
+
+	@SuppressWarnings("rawtypes")
+	private static final RedisScript<List> SCAN_PAGE = RedisScript
+			.of(new ClassPathResource("scripts/scan-page.lua"), List.class);
+
+	record ScanResult(String nextCursor, List<String> keys) {
+	}
+
+	private RedisBatchSupport() {
+	}
+
+	/**
+	 * O SCAN roda num script porque a API do template sempre comeca do
+	 * cursor 0; assim o cursor pode ser guardado e retomado.
+	 */
+	static ScanResult scan(StringRedisTemplate redisTemplate, String cursor, String pattern, int count) {
+		List<?> result = redisTemplate.execute(SCAN_PAGE, List.of(), cursor, pattern, String.valueOf(count));
+		List<String> keys = new ArrayList<>();
+		if (result.size() > 1 && result.get(1) instanceof List<?> page) {
+			page.forEach(key -> keys.add(String.valueOf(key)));
+		}
+		return new ScanResult(String.valueOf(result.get(0)), keys);
+	}
+
+	@SuppressWarnings("unchecked")
+	static List<Map<String, String>> hashes(StringRedisTemplate redisTemplate, List<String> keys) {
+		if (keys.isEmpty()) {
+			return List.of();
+		}
+		List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+			keys.forEach(key -> connection.hashCommands().hGetAll(bytes(key)));
+			return null;
+		});
+		List<Map<String, String>> hashes = new ArrayList<>(results.size());
+		results.forEach(result -> hashes.add(result instanceof Map<?, ?> hash ? (Map<String, String>) hash : Map.of()));
+		return hashes;
+	}
+
+	/**
+	 * Roda o script de re-precificacao uma vez por carrinho, todos num unico
+	 * pipeline. O corpo do script vai em cada EVAL para nao depender do cache
+	 * de scripts do servidor no meio do pipeline.
+	 */
+	static long reprice(StringRedisTemplate redisTemplate, RedisScript<?> script,
+			Map<String, ? extends Collection<CartItem>> itemsByKey) {
+		if (itemsByKey.isEmpty()) {
+			return 0;
+		}
+		byte[] body = bytes(script.getScriptAsString());
+		List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+			itemsByKey.forEach((key, items) -> {
+				List<byte[]> keysAndArgs = new ArrayList<>();
+				keysAndArgs.add(bytes(key));
+				for (CartItem item : items) {
+					keysAndArgs.add(bytes(item.getProductId()));
+					keysAndArgs.add(bytes(String.valueOf(item.getPriceCents())));
+					keysAndArgs.add(bytes(item.getProductName() != null ? item.getProductName() : ""));
+				}
+				connection.scriptingCommands().eval(body, ReturnType.INTEGER, 1, keysAndArgs.toArray(byte[][]::new));
+			});
+			return null;
+		});
+		return results.stream().mapToLong(result -> result instanceof Number changed ? changed.longValue() : 0).sum();
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+}
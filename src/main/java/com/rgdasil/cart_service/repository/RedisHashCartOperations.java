@@ -0,0 +1,203 @@
+package com.rgdasil.cart_service.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.convert.Bucket;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import com.rgdasil.cart_service.domain.Cart;
+import com.rgdasil.cart_service.domain.CartItem;
+import com.rgdasil.cart_service.domain.CartMergePolicy;
+
+/**
+ * {@link CartOperations} sobre o layout gravado pelo {@code @RedisHash("carts")}:
+ * um hash {@code carts:<userId>} com campos {@code items.[<productId>].<campo>}
+ * e o set de indice {@code carts}. As mutacoes rodam em scripts Lua, entao
+ * duas abas somando itens ao mesmo tempo nao perdem atualizacoes.
+ */
+@Repository
+@ConditionalOnProperty(name = "cart.storage.layout", havingValue = "redis-hash", matchIfMissing = true)
+public class RedisHashCartOperations implements CartOperations {
+
+	static final String KEYSPACE = "carts";
+	static final String VERSION_FIELD = "version";
+
+	@SuppressWarnings("rawtypes")
+	private static final RedisScript<List> ADD_ITEMS = RedisScript
+			.of(new ClassPathResource("scripts/redis-hash/add-items.lua"), List.class);
+
+	@SuppressWarnings("rawtypes")
+	private static final RedisScript<List> SET_QUANTITY = RedisScript
+			.of(new ClassPathResource("scripts/redis-hash/set-quantity.lua"), List.class);
+
+	@SuppressWarnings("rawtypes")
+	private static final RedisScript<List> MERGE = RedisScript
+			.of(new ClassPathResource("scripts/redis-hash/merge.lua"), List.class);
+
+	private static final RedisScript<Long> REPRICE = RedisScript
+			.of(new ClassPathResource("scripts/redis-hash/reprice.lua"), Long.class);
+
+	private final StringRedisTemplate redisTemplate;
+	private final RedisConverter redisConverter;
+	private final CartMutationMetrics mutationMetrics;
+
+	public RedisHashCartOperations(StringRedisTemplate redisTemplate, RedisConverter redisConverter,
+			CartMutationMetrics mutationMetrics) {
+		this.redisTemplate = redisTemplate;
+		this.redisConverter = redisConverter;
+		this.mutationMetrics = mutationMetrics;
+	}
+
+	@Override
+	public Cart addItems(String userId, Collection<CartItem> items) {
+		List<String> args = new ArrayList<>();
+		args.add(userId);
+		args.add(Cart.class.getName());
+		args.add(String.valueOf(Cart.DEFAULT_EXPIRATION_DAYS));
+		args.add(String.valueOf(TimeUnit.DAYS.toSeconds(Cart.DEFAULT_EXPIRATION_DAYS)));
+		for (CartItem item : items) {
+			args.add(item.getProductId());
+			args.add(item.getProductName() != null ? item.getProductName() : "");
+			args.add(String.valueOf(item.getPriceCents()));
+			args.add(String.valueOf(item.getQuantity()));
+		}
+
+		List<?> result = mutationMetrics.record("add", userId,
+				() -> redisTemplate.execute(ADD_ITEMS, List.of(key(userId)), args.toArray()));
+
+		// O indice fica fora do script para manter uma unica chave por script (compativel com cluster)
+		if (Long.valueOf(1L).equals(result.get(0))) {
+			redisTemplate.opsForSet().add(KEYSPACE, userId);
+		}
+		return toCart(userId, result.subList(1, result.size()));
+	}
+
+	@Override
+	public Optional<Cart> setItemQuantity(String userId, String productId, int quantity, CartItem newItem) {
+		List<String> args = List.of(userId, Cart.class.getName(), String.valueOf(Cart.DEFAULT_EXPIRATION_DAYS),
+				String.valueOf(TimeUnit.DAYS.toSeconds(Cart.DEFAULT_EXPIRATION_DAYS)), productId,
+				String.valueOf(quantity),
+				newItem != null && newItem.getProductName() != null ? newItem.getProductName() : "",
+				newItem != null ? String.valueOf(newItem.getPriceCents()) : "");
+
+		List<?> result = mutationMetrics.record(quantity > 0 ? "set-quantity" : "remove", userId,
+				() -> redisTemplate.execute(SET_QUANTITY, List.of(key(userId)), args.toArray()));
+
+		// { -1 }: item ausente sem dados do produto; { 0 }: carrinho inexistente
+		if (result.size() < 2) {
+			return Optional.empty();
+		}
+		if (Long.valueOf(1L).equals(result.get(0))) {
+			redisTemplate.opsForSet().add(KEYSPACE, userId);
+		}
+		return Optional.of(toCart(userId, result.subList(1, result.size())));
+	}
+
+	@Override
+	public Optional<Cart> mergeCarts(String userId, String sourceUserId, CartMergePolicy policy,
+			Collection<CartItem> validItems) {
+		List<String> args = new ArrayList<>();
+		args.add(userId);
+		args.add(Cart.class.getName());
+		args.add(String.valueOf(Cart.DEFAULT_EXPIRATION_DAYS));
+		args.add(String.valueOf(TimeUnit.DAYS.toSeconds(Cart.DEFAULT_EXPIRATION_DAYS)));
+		args.add(policy.code());
+		args.add(validItems != null ? "1" : "0");
+		if (validItems != null) {
+			for (CartItem item : validItems) {
+				args.add(item.getProductId());
+				args.add(String.valueOf(item.getPriceCents()));
+				args.add(item.getProductName() != null ? item.getProductName() : "");
+			}
+		}
+
+		List<?> result = mutationMetrics.record("merge", userId,
+				() -> redisTemplate.execute(MERGE, List.of(key(userId), key(sourceUserId)), args.toArray()));
+
+		// { -1 }: origem inexistente; { 0 }: nada entrou e o destino nao existe
+		if (!Long.valueOf(-1L).equals(result.get(0))) {
+			redisTemplate.opsForSet().remove(KEYSPACE, sourceUserId);
+		}
+		if (result.size() < 2) {
+			return Optional.empty();
+		}
+		if (Long.valueOf(1L).equals(result.get(0))) {
+			redisTemplate.opsForSet().add(KEYSPACE, userId);
+		}
+		return Optional.of(toCart(userId, result.subList(1, result.size())));
+	}
+
+	@Override
+	public Optional<Long> getVersion(String userId) {
+		Object version = redisTemplate.opsForHash().get(key(userId), VERSION_FIELD);
+		return Optional.ofNullable(version).map(value -> Long.valueOf(value.toString()));
+	}
+
+	@Override
+	public CartPage scanCarts(String cursor, int count) {
+		RedisBatchSupport.ScanResult scan = RedisBatchSupport.scan(redisTemplate, cursor, KEYSPACE + ":*", count);
+		// O @RedisHash tambem grava chaves auxiliares (":idx", ":phantom") sob o mesmo prefixo
+		List<String> keys = scan.keys().stream()
+				.filter(key -> !key.endsWith(":idx") && !key.endsWith(":phantom"))
+				.toList();
+		List<Map<String, String>> hashes = RedisBatchSupport.hashes(redisTemplate, keys);
+
+		List<Cart> carts = new ArrayList<>();
+		for (int i = 0; i < keys.size(); i++) {
+			// Vazio: o carrinho expirou ou foi apagado entre o SCAN e a leitura
+			if (!hashes.get(i).isEmpty()) {
+				carts.add(toCartFromFields(keys.get(i).substring(KEYSPACE.length() + 1), hashes.get(i)));
+			}
+		}
+		return new CartPage(scan.nextCursor(), carts);
+	}
+
+	@Override
+	public long repriceItems(Map<String, ? extends Collection<CartItem>> itemsByUserId) {
+		Map<String, Collection<CartItem>> itemsByKey = new LinkedHashMap<>();
+		itemsByUserId.forEach((userId, items) -> itemsByKey.put(key(userId), items));
+		return RedisBatchSupport.reprice(redisTemplate, REPRICE, itemsByKey);
+	}
+
+	private Cart toCart(String userId, List<?> fieldsAndValues) {
+		Map<byte[], byte[]> raw = new LinkedHashMap<>();
+		for (int i = 0; i + 1 < fieldsAndValues.size(); i += 2) {
+			raw.put(bytes(fieldsAndValues.get(i)), bytes(fieldsAndValues.get(i + 1)));
+		}
+		return toCart(userId, raw);
+	}
+
+	private Cart toCartFromFields(String userId, Map<String, String> fields) {
+		Map<byte[], byte[]> raw = new LinkedHashMap<>();
+		fields.forEach((field, value) -> raw.put(bytes(field), bytes(value)));
+		return toCart(userId, raw);
+	}
+
+	private Cart toCart(String userId, Map<byte[], byte[]> raw) {
+		RedisData data = new RedisData(Bucket.newBucketFromRawMap(raw));
+		data.setId(userId);
+		data.setKeyspace(KEYSPACE);
+		return redisConverter.read(Cart.class, data);
+	}
+
+	private static byte[] bytes(Object value) {
+		return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+	}
+
+	static String key(String userId) {
+		return KEYSPACE + ":" + userId;
+	}
+}
@@ -0,0 +1,118 @@
+package com.rgdasil.cart_service.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.rgdasil.cart_service.config.ConcurrencyLimitProperties;
+import com.rgdasil.cart_service.exception.ConcurrencyLimitExceededException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Limite de chamadas simultaneas a uma dependencia, ajustado por AIMD: cada
+ * chamada mais lenta que {@code latencyThreshold}, ou que falha por timeout,
+ * erro de I/O ou 5xx, reduz o limite multiplicando por {@code backoffRatio};
+ * um 4xx nao e sinal de sobrecarga. Chamadas rapidas com o limite
+ * pelo menos meio ocupado somam 1. Quando a dependencia fica lenta o limite
+ * encolhe e o excesso e recusado na hora, em vez de prender threads.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+	private final String name;
+	private final boolean enabled;
+	private final int minLimit;
+	private final int maxLimit;
+	private final long latencyThresholdNanos;
+	private final double backoffRatio;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private volatile int limit;
+
+	private Counter rejected;
+
+	public AdaptiveConcurrencyLimiter(String name, ConcurrencyLimitProperties.Limit properties) {
+		this.name = name;
+		this.enabled = properties.isEnabled();
+		this.minLimit = Math.max(1, properties.getMinLimit());
+		this.maxLimit = Math.max(minLimit, properties.getMaxLimit());
+		this.latencyThresholdNanos = properties.getLatencyThreshold().toNanos();
+		this.backoffRatio = properties.getBackoffRatio();
+		this.limit = Math.min(maxLimit, Math.max(minLimit, properties.getInitialLimit()));
+	}
+
+	public void bindMetrics(MeterRegistry meterRegistry) {
+		Gauge.builder("cart.dependency.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+				.description("Current adaptive concurrency limit for calls to a dependency")
+				.tag("dependency", name)
+				.register(meterRegistry);
+		Gauge.builder("cart.dependency.concurrency.in-flight", this, AdaptiveConcurrencyLimiter::getInFlight)
+				.description("Calls to a dependency currently in flight")
+				.tag("dependency", name)
+				.register(meterRegistry);
+		this.rejected = Counter.builder("cart.dependency.concurrency.rejected")
+				.description("Calls refused because the dependency was at its concurrency limit")
+				.tag("dependency", name)
+				.register(meterRegistry);
+	}
+
+	public <T> T execute(Supplier<T> call) {
+		if (!enabled) {
+			return call.get();
+		}
+		if (!tryAcquire()) {
+			if (rejected != null) {
+				rejected.increment();
+			}
+			throw new ConcurrencyLimitExceededException(
+					"Too many concurrent calls to " + name + " (limit " + limit + ")");
+		}
+
+		long start = System.nanoTime();
+		boolean overloaded = false;
+		try {
+			return call.get();
+		} catch (RuntimeException e) {
+			overloaded = e instanceof ResourceAccessException || e instanceof HttpServerErrorException;
+			throw e;
+		} finally {
+			release(System.nanoTime() - start, overloaded);
+		}
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	private boolean tryAcquire() {
+		while (true) {
+			int current = inFlight.get();
+			if (current >= limit) {
+				return false;
+			}
+			if (inFlight.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	private void release(long elapsedNanos, boolean overloaded) {
+		int inFlightBefore = inFlight.getAndDecrement();
+		synchronized (this) {
+			if (overloaded || elapsedNanos > latencyThresholdNanos) {
+				limit = Math.max(minLimit, (int) (limit * backoffRatio));
+			} else if (inFlightBefore * 2 >= limit) {
+				// So cresce quando o limite esta de fato sendo usado
+				limit = Math.min(maxLimit, limit + 1);
+			}
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package com.rgdasil.cart_service.resilience;
+
+import java.util.function.Supplier;
+
+import com.rgdasil.cart_service.exception.ConcurrencyLimitExceededException;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+
+/**
+ * Isolamento para chamadas feitas fora dos aspectos do Resilience4j (como a
+ * do {@code JwtAuthInterceptor}), na mesma ordem das anotacoes: circuit
+ * breaker por fora, depois o bulkhead e o limite adaptativo por dentro.
+ */
+public class DependencyGuard {
+
+	private final CircuitBreaker circuitBreaker;
+	private final Bulkhead bulkhead;
+	private final AdaptiveConcurrencyLimiter limiter;
+
+	public DependencyGuard(CircuitBreaker circuitBreaker, Bulkhead bulkhead, AdaptiveConcurrencyLimiter limiter) {
+		this.circuitBreaker = circuitBreaker;
+		this.bulkhead = bulkhead;
+		this.limiter = limiter;
+	}
+
+	// Sem isolamento nenhum: para uso fora do Spring (testes unitarios, benchmarks)
+	public static DependencyGuard unguarded() {
+		return new DependencyGuard(null, null, null);
+	}
+
+	public <T> T call(Supplier<T> call) {
+		Supplier<T> guarded = call;
+		if (limiter != null) {
+			Supplier<T> inner = guarded;
+			guarded = () -> limiter.execute(inner);
+		}
+		if (bulkhead != null) {
+			guarded = Bulkhead.decorateSupplier(bulkhead, guarded);
+		}
+		if (circuitBreaker != null) {
+			guarded = CircuitBreaker.decorateSupplier(circuitBreaker, guarded);
+		}
+		return guarded.get();
+	}
+
+	/**
+	 * A chamada foi recusada sem chegar a dependencia: circuito aberto,
+	 * bulkhead cheio ou limite de concorrencia atingido.
+	 */
+	public static boolean isRejection(Throwable t) {
+		return t instanceof CallNotPermittedException
+				|| t instanceof BulkheadFullException
+				|| t instanceof ConcurrencyLimitExceededException;
+	}
+}
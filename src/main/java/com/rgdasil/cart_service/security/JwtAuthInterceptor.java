@@ -3,8 +3,12 @@ package com.rgdasil.cart_service.security;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+import java.io.IOException;
+import java.util.Optional;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -16,6 +20,11 @@ import org.springframework.web.servlet.HandlerInterceptor;
 
 import com.rgdasil.cart_service.dto.AuthRequest;
 import com.rgdasil.cart_service.dto.AuthResponse;
+import com.rgdasil.cart_service.exception.ServiceUnavailableException;
+import com.rgdasil.cart_service.metrics.HopMetrics;
+import com.rgdasil.cart_service.resilience.DependencyGuard;
+
+import io.micrometer.core.instrument.Timer;
 
 @Component
 public class JwtAuthInterceptor implements HandlerInterceptor {
@@ -27,11 +36,25 @@ public class JwtAuthInterceptor implements HandlerInterceptor {
 	private String internalApiKey;
 
 	private final RestTemplate restTemplate;
+	private final TokenValidationCache tokenValidationCache;
+	private final LocalJwtVerifier localJwtVerifier;
+	private final HopMetrics hopMetrics;
+
+	// Circuit breaker, bulkhead e limite adaptativo da chamada ao auth-service
+	private final DependencyGuard authServiceGuard;
 
 	private static final Logger log = LoggerFactory.getLogger(JwtAuthInterceptor.class);
 
-	public JwtAuthInterceptor(RestTemplate restTemplate) {
+	public JwtAuthInterceptor(@Qualifier("authRestTemplate") RestTemplate restTemplate,
+			TokenValidationCache tokenValidationCache,
+			LocalJwtVerifier localJwtVerifier,
+			HopMetrics hopMetrics,
+			@Qualifier("authServiceGuard") DependencyGuard authServiceGuard) {
 		this.restTemplate = restTemplate;
+		this.tokenValidationCache = tokenValidationCache;
+		this.localJwtVerifier = localJwtVerifier;
+		this.hopMetrics = hopMetrics;
+		this.authServiceGuard = authServiceGuard;
 	}
 
 	@Override
@@ -46,6 +69,66 @@ public class JwtAuthInterceptor implements HandlerInterceptor {
 		}
 
 		String token = authHeader.substring(7);
+		Optional<String> userId;
+		try {
+			userId = authenticate(token);
+		} catch (ServiceUnavailableException e) {
+			return unavailable(response);
+		}
+		if (userId.isEmpty()) {
+			return reject(response);
+		}
+
+		// Se o token for válido, anexa o userId à requisição para o controller usar
+		request.setAttribute("userId", userId.get());
+		return true; // Permite que a requisição continue
+	}
+
+	/**
+	 * Valida o token (cache, verificacao local ou auth-service) e devolve o
+	 * userId dono dele, ou vazio se o token for invalido. Lanca
+	 * {@link ServiceUnavailableException} quando o auth-service recusa ou nao
+	 * consegue julgar o token.
+	 */
+	public Optional<String> authenticate(String token) {
+		Timer.Sample sample = hopMetrics.start();
+
+		// Evita a chamada ao auth-service para tokens ja conhecidos
+		if (tokenValidationCache.isRejected(token)) {
+			hopMetrics.stop(sample, HopMetrics.AUTH, "validate", "cache-rejected");
+			return Optional.empty();
+		}
+
+		Optional<String> cachedUserId = tokenValidationCache.getUserId(token);
+		if (cachedUserId.isPresent()) {
+			hopMetrics.stop(sample, HopMetrics.AUTH, "validate", "cache-hit");
+			return cachedUserId;
+		}
+
+		// Verificacao local da assinatura, sem ida ao auth-service
+		if (localJwtVerifier.isEnabled()) {
+			LocalJwtVerifier.Result result = localJwtVerifier.verify(token);
+
+			switch (result.status()) {
+			case VALID:
+				if (!localJwtVerifier.isRevocationCheckEnabled()) {
+					tokenValidationCache.putValid(token, result.userId());
+					hopMetrics.stop(sample, HopMetrics.AUTH, "validate", "local-valid");
+					return Optional.of(result.userId());
+				}
+				break; // Assinatura ok, mas o auth-service ainda confirma a revogacao
+			case INVALID:
+				tokenValidationCache.putRejected(token);
+				hopMetrics.stop(sample, HopMetrics.AUTH, "validate", "local-invalid");
+				return Optional.empty();
+			case UNVERIFIABLE:
+				if (!localJwtVerifier.isRemoteFallbackEnabled()) {
+					hopMetrics.stop(sample, HopMetrics.AUTH, "validate", "local-unverifiable");
+					return Optional.empty();
+				}
+				break;
+			}
+		}
 
 		// Prepara a chamada para o auth-service (Go)
 		HttpHeaders headers = new HttpHeaders();
@@ -57,25 +140,44 @@ public class JwtAuthInterceptor implements HandlerInterceptor {
 
 		try {
 			// Executa a chamada
-			ResponseEntity<AuthResponse> authResponseEntity = restTemplate.exchange(authServiceUrl, HttpMethod.POST,
-					entity, AuthResponse.class);
+			ResponseEntity<AuthResponse> authResponseEntity = authServiceGuard.call(() -> restTemplate
+					.exchange(authServiceUrl, HttpMethod.POST, entity, AuthResponse.class));
 
 			AuthResponse authResponse = authResponseEntity.getBody();
 
 			if (authResponseEntity.getStatusCode().is2xxSuccessful() && authResponse != null
 					&& authResponse.isValid()) {
 				log.info("Token valid for userId: {}", authResponse.getUserId());
-				
-				// Se o token for válido, anexa o userId à requisição para o controller usar
-				request.setAttribute("userId", authResponse.getUserId());
-				return true; // Permite que a requisição continue
+				tokenValidationCache.putValid(token, authResponse.getUserId());
+				hopMetrics.stop(sample, HopMetrics.AUTH, "validate", "remote-valid");
+				return Optional.of(authResponse.getUserId());
 			}
+			// Só entra no cache negativo quando o auth-service respondeu de fato
+			tokenValidationCache.putRejected(token);
+			hopMetrics.stop(sample, HopMetrics.AUTH, "validate", "remote-invalid");
 		} catch (Exception e) {
+			if (DependencyGuard.isRejection(e)) {
+				// auth-service sobrecarregado ou fora: o token nao foi julgado, entao nao e 401
+				log.warn("Auth service call rejected: {}", e.getMessage());
+				hopMetrics.stop(sample, HopMetrics.AUTH, "validate", "rejected");
+				throw new ServiceUnavailableException("Authentication service is temporarily unavailable");
+			}
 			log.error("Error validating token: " + e.getMessage());
+			hopMetrics.stop(sample, HopMetrics.AUTH, "validate", "error");
 		}
 
+		return Optional.empty();
+	}
+
+	private boolean reject(HttpServletResponse response) throws IOException {
 		response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
 		response.getWriter().write("Invalid token");
 		return false;
 	}
+
+	private boolean unavailable(HttpServletResponse response) throws IOException {
+		response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+		response.getWriter().write("Authentication service is temporarily unavailable");
+		return false;
+	}
 }
@@ -0,0 +1,234 @@
+package com.rgdasil.cart_service.security;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.X509EncodedKeySpec;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.OctetSequenceKey;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+/**
+ * Verificacao local de JWT (assinatura + exp/nbf), sem ida ao auth-service.
+ *
+ * As chaves vem de um segredo HMAC compartilhado, de uma chave publica PEM ou
+ * de um arquivo JWKS em disco. Quando nenhuma chave configurada serve para o
+ * token o resultado e {@link Status#UNVERIFIABLE}, e o interceptor decide se
+ * recorre ao auth-service.
+ */
+@Component
+public class LocalJwtVerifier {
+
+	private static final Logger log = LoggerFactory.getLogger(LocalJwtVerifier.class);
+
+	public enum Status {
+		VALID, INVALID, UNVERIFIABLE
+	}
+
+	public record Result(Status status, String userId) {
+
+		static Result valid(String userId) {
+			return new Result(Status.VALID, userId);
+		}
+
+		static Result invalid() {
+			return new Result(Status.INVALID, null);
+		}
+
+		static Result unverifiable() {
+			return new Result(Status.UNVERIFIABLE, null);
+		}
+	}
+
+	private final boolean enabled;
+	private final boolean remoteFallback;
+	private final boolean revocationCheck;
+	private final String userIdClaim;
+	private final Duration clockSkew;
+
+	private final byte[] hmacSecret;
+	private final PublicKey publicKey;
+	private final JWKSet jwkSet;
+
+	public LocalJwtVerifier(@Value("${security.jwt.local.enabled:false}") boolean enabled,
+			@Value("${security.jwt.local.remote-fallback:true}") boolean remoteFallback,
+			@Value("${security.jwt.local.revocation-check:false}") boolean revocationCheck,
+			@Value("${security.jwt.local.user-id-claim:user_id}") String userIdClaim,
+			@Value("${security.jwt.local.clock-skew:30s}") Duration clockSkew,
+			@Value("${security.jwt.local.hmac-secret:}") String hmacSecret,
+			@Value("${security.jwt.local.public-key-location:}") String publicKeyLocation,
+			@Value("${security.jwt.local.jwks-location:}") String jwksLocation) {
+		this.enabled = enabled;
+		this.remoteFallback = remoteFallback;
+		this.revocationCheck = revocationCheck;
+		this.userIdClaim = userIdClaim;
+		this.clockSkew = clockSkew;
+
+		this.hmacSecret = StringUtils.hasText(hmacSecret) ? hmacSecret.getBytes(StandardCharsets.UTF_8) : null;
+		this.publicKey = StringUtils.hasText(publicKeyLocation) ? loadPublicKey(Path.of(publicKeyLocation)) : null;
+		this.jwkSet = StringUtils.hasText(jwksLocation) ? loadJwkSet(Path.of(jwksLocation)) : null;
+
+		if (enabled && this.hmacSecret == null && this.publicKey == null && this.jwkSet == null) {
+			log.warn("Local JWT verification is enabled but no key is configured; every token will be unverifiable");
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public boolean isRemoteFallbackEnabled() {
+		return remoteFallback;
+	}
+
+	public boolean isRevocationCheckEnabled() {
+		return revocationCheck;
+	}
+
+	public Result verify(String token) {
+		SignedJWT jwt;
+		try {
+			jwt = SignedJWT.parse(token);
+		} catch (ParseException e) {
+			log.debug("Token is not a signed JWT: {}", e.getMessage());
+			return Result.invalid();
+		}
+
+		JWSVerifier verifier;
+		try {
+			verifier = verifierFor(jwt.getHeader());
+		} catch (JOSEException e) {
+			log.warn("Could not build verifier for token: {}", e.getMessage());
+			return Result.unverifiable();
+		}
+		if (verifier == null) {
+			return Result.unverifiable();
+		}
+
+		try {
+			if (!jwt.verify(verifier)) {
+				return Result.invalid();
+			}
+			return checkClaims(jwt.getJWTClaimsSet());
+		} catch (JOSEException | ParseException e) {
+			log.debug("Token rejected by local verification: {}", e.getMessage());
+			return Result.invalid();
+		}
+	}
+
+	private Result checkClaims(JWTClaimsSet claims) throws ParseException {
+		Instant now = Instant.now();
+
+		Date expiration = claims.getExpirationTime();
+		if (expiration == null || expiration.toInstant().plus(clockSkew).isBefore(now)) {
+			return Result.invalid();
+		}
+
+		Date notBefore = claims.getNotBeforeTime();
+		if (notBefore != null && notBefore.toInstant().minus(clockSkew).isAfter(now)) {
+			return Result.invalid();
+		}
+
+		Object userId = claims.getClaim(userIdClaim);
+		if (userId == null) {
+			userId = claims.getSubject();
+		}
+		return userId != null ? Result.valid(userId.toString()) : Result.invalid();
+	}
+
+	private JWSVerifier verifierFor(JWSHeader header) throws JOSEException {
+		JWSAlgorithm algorithm = header.getAlgorithm();
+
+		if (JWSAlgorithm.Family.HMAC_SHA.contains(algorithm)) {
+			if (hmacSecret != null) {
+				return new MACVerifier(hmacSecret);
+			}
+			JWK jwk = findJwk(header.getKeyID());
+			return jwk instanceof OctetSequenceKey octetKey ? new MACVerifier(octetKey.toByteArray()) : null;
+		}
+
+		if (JWSAlgorithm.Family.RSA.contains(algorithm)) {
+			if (publicKey instanceof RSAPublicKey rsaKey) {
+				return new RSASSAVerifier(rsaKey);
+			}
+			JWK jwk = findJwk(header.getKeyID());
+			return jwk instanceof RSAKey rsaJwk ? new RSASSAVerifier(rsaJwk.toRSAPublicKey()) : null;
+		}
+
+		if (JWSAlgorithm.Family.EC.contains(algorithm)) {
+			if (publicKey instanceof ECPublicKey ecKey) {
+				return new ECDSAVerifier(ecKey);
+			}
+			JWK jwk = findJwk(header.getKeyID());
+			return jwk instanceof ECKey ecJwk ? new ECDSAVerifier(ecJwk.toECPublicKey()) : null;
+		}
+
+		return null;
+	}
+
+	private JWK findJwk(String keyId) {
+		if (jwkSet == null) {
+			return null;
+		}
+		if (keyId != null) {
+			return jwkSet.getKeyByKeyId(keyId);
+		}
+		// Sem "kid" no header: so e possivel escolher quando o conjunto tem uma unica chave
+		List<JWK> keys = jwkSet.getKeys();
+		return keys.size() == 1 ? keys.get(0) : null;
+	}
+
+	private static PublicKey loadPublicKey(Path location) {
+		try {
+			String pem = Files.readString(location);
+			String base64 = pem.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+			X509EncodedKeySpec spec = new X509EncodedKeySpec(Base64.getDecoder().decode(base64));
+			try {
+				return KeyFactory.getInstance("RSA").generatePublic(spec);
+			} catch (InvalidKeySpecException notRsa) {
+				return KeyFactory.getInstance("EC").generatePublic(spec);
+			}
+		} catch (IOException | GeneralSecurityException | IllegalArgumentException e) {
+			throw new IllegalStateException("Could not load JWT public key from " + location, e);
+		}
+	}
+
+	private static JWKSet loadJwkSet(Path location) {
+		try {
+			return JWKSet.load(location.toFile());
+		} catch (IOException | ParseException e) {
+			throw new IllegalStateException("Could not load JWKS from " + location, e);
+		}
+	}
+}
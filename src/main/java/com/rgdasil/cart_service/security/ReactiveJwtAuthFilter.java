@@ -0,0 +1,151 @@
+package com.rgdasil.cart_service.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.rgdasil.cart_service.dto.AuthRequest;
+import com.rgdasil.cart_service.dto.AuthResponse;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Equivalente reativo do {@link JwtAuthInterceptor}: mesma ordem de
+ * verificacao (caches, verificacao local, auth-service) e o mesmo atributo
+ * {@code userId} para o controller.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveJwtAuthFilter implements WebFilter {
+
+	private static final PathPattern PROTECTED_PATHS = PathPatternParser.defaultInstance.parse("/cart/**");
+
+	@Value("${service.auth.url}")
+	private String authServiceUrl;
+
+	@Value("${service.internal.api-key}")
+	private String internalApiKey;
+
+	private final WebClient webClient;
+	private final TokenValidationCache tokenValidationCache;
+	private final LocalJwtVerifier localJwtVerifier;
+
+	private static final Logger log = LoggerFactory.getLogger(ReactiveJwtAuthFilter.class);
+
+	public ReactiveJwtAuthFilter(@Qualifier("authWebClient") WebClient webClient,
+			TokenValidationCache tokenValidationCache,
+			LocalJwtVerifier localJwtVerifier) {
+		this.webClient = webClient;
+		this.tokenValidationCache = tokenValidationCache;
+		this.localJwtVerifier = localJwtVerifier;
+	}
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		if (!PROTECTED_PATHS.matches(exchange.getRequest().getPath().pathWithinApplication())) {
+			return chain.filter(exchange);
+		}
+
+		String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+		if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+			return unauthorized(exchange.getResponse(), "Authorization header is missing or invalid");
+		}
+
+		String token = authHeader.substring(7);
+
+		// Resolve o userId antes de seguir a cadeia, para que um corpo vazio do
+		// controller nao seja confundido com token rejeitado
+		return resolveUserId(token).flatMap(userId -> {
+			if (userId.isEmpty()) {
+				return unauthorized(exchange.getResponse(), "Invalid token");
+			}
+			exchange.getAttributes().put("userId", userId.get());
+			return chain.filter(exchange);
+		});
+	}
+
+	private Mono<Optional<String>> resolveUserId(String token) {
+		// Evita a chamada ao auth-service para tokens ja conhecidos
+		if (tokenValidationCache.isRejected(token)) {
+			return Mono.just(Optional.empty());
+		}
+
+		Optional<String> cachedUserId = tokenValidationCache.getUserId(token);
+		if (cachedUserId.isPresent()) {
+			return Mono.just(cachedUserId);
+		}
+
+		// Verificacao local da assinatura, sem ida ao auth-service
+		if (localJwtVerifier.isEnabled()) {
+			LocalJwtVerifier.Result result = localJwtVerifier.verify(token);
+
+			switch (result.status()) {
+			case VALID:
+				if (!localJwtVerifier.isRevocationCheckEnabled()) {
+					tokenValidationCache.putValid(token, result.userId());
+					return Mono.just(Optional.of(result.userId()));
+				}
+				break; // Assinatura ok, mas o auth-service ainda confirma a revogacao
+			case INVALID:
+				tokenValidationCache.putRejected(token);
+				return Mono.just(Optional.empty());
+			case UNVERIFIABLE:
+				if (!localJwtVerifier.isRemoteFallbackEnabled()) {
+					return Mono.just(Optional.empty());
+				}
+				break;
+			}
+		}
+
+		return validateRemotely(token);
+	}
+
+	private Mono<Optional<String>> validateRemotely(String token) {
+		return webClient.post()
+				.uri(authServiceUrl)
+				.contentType(MediaType.APPLICATION_JSON)
+				.header("X-Internal-Api-Key", internalApiKey)
+				.bodyValue(new AuthRequest(token))
+				.retrieve()
+				.bodyToMono(AuthResponse.class)
+				.map(authResponse -> {
+					if (authResponse.isValid()) {
+						log.info("Token valid for userId: {}", authResponse.getUserId());
+						tokenValidationCache.putValid(token, authResponse.getUserId());
+						return Optional.of(authResponse.getUserId());
+					}
+					// So entra no cache negativo quando o auth-service respondeu de fato
+					tokenValidationCache.putRejected(token);
+					return Optional.<String>empty();
+				})
+				.defaultIfEmpty(Optional.empty())
+				.onErrorResume(e -> {
+					log.error("Error validating token: " + e.getMessage());
+					return Mono.just(Optional.empty());
+				});
+	}
+
+	private static Mono<Void> unauthorized(ServerHttpResponse response, String message) {
+		response.setStatusCode(HttpStatus.UNAUTHORIZED);
+		DataBuffer body = response.bufferFactory().wrap(message.getBytes(StandardCharsets.UTF_8));
+		return response.writeWith(Mono.just(body));
+	}
+}
@@ -0,0 +1,152 @@
+package com.rgdasil.cart_service.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Cache em memoria das validacoes de token feitas pelo auth-service.
+ *
+ * As chaves sao o hash SHA-256 do token (o token em si nunca fica em memoria).
+ * Entradas validas expiram no menor valor entre o TTL configurado e o claim
+ * {@code exp} do proprio token; tokens rejeitados ficam num cache negativo de
+ * vida curta.
+ */
+@Component
+public class TokenValidationCache {
+
+	private static final Logger log = LoggerFactory.getLogger(TokenValidationCache.class);
+
+	private final boolean enabled;
+	private final Duration ttl;
+	private final Cache<String, CachedToken> validTokens;
+	private final Cache<String, Boolean> rejectedTokens;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	public TokenValidationCache(@Value("${cache.auth.enabled:true}") boolean enabled,
+			@Value("${cache.auth.max-size:10000}") long maxSize,
+			@Value("${cache.auth.ttl:5m}") Duration ttl,
+			@Value("${cache.auth.negative-ttl:30s}") Duration negativeTtl,
+			MeterRegistry meterRegistry) {
+		this.enabled = enabled;
+		this.ttl = ttl;
+
+		this.validTokens = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfter(new TokenExpiry())
+				.recordStats()
+				.build();
+
+		this.rejectedTokens = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(negativeTtl)
+				.recordStats()
+				.build();
+
+		CaffeineCacheMetrics.monitor(meterRegistry, validTokens, "auth.tokens.valid");
+		CaffeineCacheMetrics.monitor(meterRegistry, rejectedTokens, "auth.tokens.rejected");
+	}
+
+	public Optional<String> getUserId(String token) {
+		if (!enabled) {
+			return Optional.empty();
+		}
+		CachedToken cached = validTokens.getIfPresent(hash(token));
+		return Optional.ofNullable(cached).map(CachedToken::userId);
+	}
+
+	public boolean isRejected(String token) {
+		return enabled && rejectedTokens.getIfPresent(hash(token)) != null;
+	}
+
+	public void putValid(String token, String userId) {
+		if (!enabled || userId == null) {
+			return;
+		}
+		Instant expiresAt = Instant.now().plus(ttl);
+		Optional<Instant> tokenExpiry = readExpiry(token);
+		if (tokenExpiry.isPresent() && tokenExpiry.get().isBefore(expiresAt)) {
+			expiresAt = tokenExpiry.get();
+		}
+		if (!expiresAt.isAfter(Instant.now())) {
+			return;
+		}
+		validTokens.put(hash(token), new CachedToken(userId, expiresAt));
+	}
+
+	public void putRejected(String token) {
+		if (enabled) {
+			rejectedTokens.put(hash(token), Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * Le o claim {@code exp} sem verificar a assinatura. So e usado para encurtar
+	 * a vida de uma entrada que o auth-service ja validou.
+	 */
+	private Optional<Instant> readExpiry(String token) {
+		String[] parts = token.split("\\.");
+		if (parts.length < 2) {
+			return Optional.empty();
+		}
+		try {
+			JsonNode claims = objectMapper.readTree(Base64.getUrlDecoder().decode(parts[1]));
+			JsonNode exp = claims.get("exp");
+			return exp != null && exp.canConvertToLong()
+					? Optional.of(Instant.ofEpochSecond(exp.asLong()))
+					: Optional.empty();
+		} catch (Exception e) {
+			log.debug("Could not read exp claim from token: {}", e.getMessage());
+			return Optional.empty();
+		}
+	}
+
+	static String hash(String token) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+
+	record CachedToken(String userId, Instant expiresAt) {
+	}
+
+	private static final class TokenExpiry implements Expiry<String, CachedToken> {
+
+		@Override
+		public long expireAfterCreate(String key, CachedToken value, long currentTime) {
+			return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+		}
+
+		@Override
+		public long expireAfterUpdate(String key, CachedToken value, long currentTime, long currentDuration) {
+			return expireAfterCreate(key, value, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(String key, CachedToken value, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package com.rgdasil.cart_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.rgdasil.cart_service.dto.ProductDTO;
+import com.rgdasil.cart_service.exception.ServiceUnavailableException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Cache de produtos na frente de um {@link ProductServiceClient}.
+ *
+ * Entradas positivas sao frescas durante {@code ttl}; depois disso ainda sao
+ * servidas por ate {@code maxStale} enquanto um refresh roda em background
+ * (stale-while-revalidate). Se o product-service estiver indisponivel (circuit
+ * breaker aberto), a entrada antiga continua sendo servida. 404 ficam num cache
+ * negativo de vida curta.
+ */
+public class CachingProductServiceClient implements ProductServiceClient {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingProductServiceClient.class);
+
+    private final ProductServiceClient delegate;
+    private final Executor refreshExecutor;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final long maxStaleNanos;
+    private final Cache<String, Entry> cache;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    public CachingProductServiceClient(ProductServiceClient delegate, Executor refreshExecutor, long maxSize,
+                                       Duration ttl, Duration negativeTtl, Duration maxStale) {
+        this.delegate = delegate;
+        this.refreshExecutor = refreshExecutor;
+        this.ttlNanos = ttl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        this.maxStaleNanos = maxStale.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new EntryExpiry())
+                .recordStats()
+                .build();
+    }
+
+    public void bindMetrics(MeterRegistry meterRegistry, String cacheName) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, cacheName);
+    }
+
+    @Override
+    public Optional<ProductDTO> getProductById(String productId) {
+        Entry entry = cache.getIfPresent(productId);
+
+        if (entry != null) {
+            if (entry.isStale(ttlNanos)) {
+                refreshInBackground(productId);
+            }
+            return entry.product();
+        }
+
+        return load(productId);
+    }
+
+    @Override
+    public Map<String, ProductDTO> getProductsByIds(Collection<String> productIds) {
+        Map<String, ProductDTO> products = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+
+        for (String productId : new LinkedHashSet<>(productIds)) {
+            Entry entry = cache.getIfPresent(productId);
+            if (entry == null) {
+                missing.add(productId);
+                continue;
+            }
+            if (entry.isStale(ttlNanos)) {
+                refreshInBackground(productId);
+            }
+            entry.product().ifPresent(product -> products.put(productId, product));
+        }
+
+        if (!missing.isEmpty()) {
+            Map<String, ProductDTO> loaded = delegate.getProductsByIds(missing);
+            long loadedAt = System.nanoTime();
+            for (String productId : missing) {
+                Optional<ProductDTO> product = Optional.ofNullable(loaded.get(productId));
+                cache.put(productId, new Entry(product, loadedAt));
+                product.ifPresent(found -> products.put(productId, found));
+            }
+        }
+        return products;
+    }
+
+    private Optional<ProductDTO> load(String productId) {
+        Optional<ProductDTO> product = delegate.getProductById(productId);
+        cache.put(productId, new Entry(product, System.nanoTime()));
+        return product;
+    }
+
+    private void refreshInBackground(String productId) {
+        // Um unico refresh por produto de cada vez
+        if (!refreshing.add(productId)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    load(productId);
+                } catch (ServiceUnavailableException e) {
+                    log.warn("Product service unavailable, keeping stale entry for ID {}", productId);
+                } catch (Exception e) {
+                    log.warn("Background refresh failed for product ID {}: {}", productId, e.getMessage());
+                } finally {
+                    refreshing.remove(productId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(productId);
+            log.debug("Refresh queue full, serving stale product ID {}", productId);
+        }
+    }
+
+    record Entry(Optional<ProductDTO> product, long loadedAt) {
+
+        boolean isStale(long ttlNanos) {
+            return System.nanoTime() - loadedAt >= ttlNanos;
+        }
+    }
+
+    private final class EntryExpiry implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry value, long currentTime) {
+            return value.product().isPresent() ? ttlNanos + maxStaleNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
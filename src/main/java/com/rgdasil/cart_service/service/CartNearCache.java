@@ -0,0 +1,113 @@
+package com.rgdasil.cart_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rgdasil.cart_service.domain.Cart;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Cache local (L1) de carrinhos ja desserializados.
+ *
+ * Toda escrita invalida a entrada local e publica o userId num canal do
+ * Redis; as outras instancias recebem a mensagem e descartam a sua copia.
+ * O {@code ttl} limita por quanto tempo uma copia pode ficar velha se uma
+ * mensagem se perder (pub/sub nao tem garantia de entrega).
+ */
+public class CartNearCache implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CartNearCache.class);
+    private static final String SEPARATOR = "|";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Cache<String, Cart> cache;
+
+    private final Counter localInvalidations;
+    private final Counter remoteInvalidations;
+    private final Timer invalidationLag;
+
+    public CartNearCache(StringRedisTemplate redisTemplate, String channel, long maxSize, Duration ttl,
+                         MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "carts.near");
+        this.localInvalidations = Counter.builder("cart.near-cache.invalidations")
+                .description("Near-cache entries invalidated by writes on this instance")
+                .tag("source", "local")
+                .register(meterRegistry);
+        this.remoteInvalidations = Counter.builder("cart.near-cache.invalidations")
+                .description("Near-cache entries invalidated by writes on other instances")
+                .tag("source", "remote")
+                .register(meterRegistry);
+        this.invalidationLag = Timer.builder("cart.near-cache.invalidation.lag")
+                .description("Time between a write on another instance and the local invalidation")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Carrinho local, ou carregado pelo {@code loader} e guardado. Carrinhos
+     * inexistentes nao sao guardados.
+     */
+    public Optional<Cart> get(String userId, Function<String, Optional<Cart>> loader) {
+        return Optional.ofNullable(cache.get(userId, id -> loader.apply(id).orElse(null)));
+    }
+
+    public Optional<Cart> getIfPresent(String userId) {
+        return Optional.ofNullable(cache.getIfPresent(userId));
+    }
+
+    /**
+     * Chamado depois de cada escrita no carrinho.
+     */
+    public void invalidate(String userId) {
+        cache.invalidate(userId);
+        localInvalidations.increment();
+        try {
+            redisTemplate.convertAndSend(channel,
+                    instanceId + SEPARATOR + System.currentTimeMillis() + SEPARATOR + userId);
+        } catch (Exception e) {
+            // As outras instancias ficam limitadas pelo ttl
+            log.warn("Could not publish cart invalidation for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length < 3 || instanceId.equals(parts[0])) {
+            return; // A propria instancia ja invalidou ao escrever
+        }
+        cache.invalidate(parts[2]);
+        remoteInvalidations.increment();
+        try {
+            long lag = System.currentTimeMillis() - Long.parseLong(parts[1]);
+            invalidationLag.record(Math.max(lag, 0), TimeUnit.MILLISECONDS);
+        } catch (NumberFormatException e) {
+            log.debug("Malformed cart invalidation message: {}", (Object) parts);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.rgdasil.cart_service.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.rgdasil.cart_service.domain.Cart;
+import com.rgdasil.cart_service.domain.CartItem;
+import com.rgdasil.cart_service.domain.Money;
+import com.rgdasil.cart_service.dto.ProductDTO;
+import com.rgdasil.cart_service.repository.CartOperations;
+import com.rgdasil.cart_service.repository.CartPage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Passa periodicamente por todos os carrinhos gravados e corrige precos e
+ * nomes que mudaram no catalogo. A varredura e paginada com {@code SCAN}; cada
+ * pagina faz uma unica busca em lote no product-service e grava as correcoes
+ * num pipeline. O cursor e salvo no Redis a cada pagina, entao uma passada
+ * interrompida (deploy, erro do catalogo) continua de onde parou. Um lock com
+ * lease garante uma unica instancia varrendo por vez, e {@code rate} limita
+ * quantos carrinhos por segundo sao lidos para nao competir com o trafego.
+ */
+@Component
+@ConditionalOnProperty(name = "cart.repricing.enabled", havingValue = "true")
+public class CartRepricingJob {
+
+	static final String CURSOR_KEY = "cart-repricing:cursor";
+	static final String LAST_PASS_KEY = "cart-repricing:last-pass";
+	static final String LOCK_KEY = "cart-repricing:lock";
+
+	private static final Logger log = LoggerFactory.getLogger(CartRepricingJob.class);
+
+	private final CartOperations cartOperations;
+	private final ProductServiceClient productServiceClient;
+	private final StringRedisTemplate redisTemplate;
+	private final int pageSize;
+	private final double rate;
+	private final Duration lockTtl;
+	private final String instanceId = UUID.randomUUID().toString();
+
+	// Presente so com cache.cart.near.enabled=true
+	@Autowired(required = false)
+	private CartNearCache nearCache;
+
+	private final Counter cartsScanned;
+	private final Counter itemsRepriced;
+	private final Timer pageTime;
+	private final AtomicLong passScanned = new AtomicLong();
+	private volatile long lastPassMillis;
+
+	@Autowired
+	public CartRepricingJob(CartOperations cartOperations, ProductServiceClient productServiceClient,
+			StringRedisTemplate redisTemplate,
+			@Value("${cart.repricing.page-size:100}") int pageSize,
+			@Value("${cart.repricing.rate:200}") double rate,
+			@Value("${cart.repricing.lock-ttl:5m}") Duration lockTtl,
+			ObjectProvider<MeterRegistry> meterRegistry) {
+		this.cartOperations = cartOperations;
+		this.productServiceClient = productServiceClient;
+		this.redisTemplate = redisTemplate;
+		this.pageSize = pageSize;
+		this.rate = rate;
+		this.lockTtl = lockTtl;
+
+		MeterRegistry registry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+		this.cartsScanned = Counter.builder("cart.repricing.carts.scanned")
+				.description("Carts read by the re-pricing job")
+				.register(registry);
+		this.itemsRepriced = Counter.builder("cart.repricing.items.repriced")
+				.description("Cart items whose price or name was corrected from the catalog")
+				.register(registry);
+		this.pageTime = Timer.builder("cart.repricing.page")
+				.description("Time to scan, look up and write back one page of carts")
+				.register(registry);
+		Gauge.builder("cart.repricing.pass.scanned", passScanned, AtomicLong::get)
+				.description("Carts scanned so far in the current re-pricing pass")
+				.register(registry);
+		Gauge.builder("cart.repricing.lag", this, CartRepricingJob::getLagSeconds)
+				.description("Seconds since the last complete re-pricing pass")
+				.baseUnit("seconds")
+				.register(registry);
+	}
+
+	@Scheduled(fixedDelayString = "${cart.repricing.interval:PT10M}",
+			initialDelayString = "${cart.repricing.initial-delay:PT1M}")
+	public void run() {
+		if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, instanceId, lockTtl))) {
+			log.debug("Cart re-pricing already running on another instance");
+			return;
+		}
+		try {
+			runPass();
+		} catch (RuntimeException e) {
+			// O cursor salvo permanece; a proxima execucao retoma da ultima pagina concluida
+			log.warn("Cart re-pricing pass interrupted: {}", e.getMessage());
+		} finally {
+			releaseLock();
+		}
+	}
+
+	/**
+	 * Segundos desde a ultima passada completa, em qualquer instancia; NaN se
+	 * nenhuma passada terminou ainda.
+	 */
+	public double getLagSeconds() {
+		long last = lastPassMillis;
+		return last == 0 ? Double.NaN : (System.currentTimeMillis() - last) / 1000.0;
+	}
+
+	private void runPass() {
+		String lastPass = redisTemplate.opsForValue().get(LAST_PASS_KEY);
+		if (lastPass != null) {
+			lastPassMillis = Long.parseLong(lastPass);
+		}
+
+		String saved = redisTemplate.opsForValue().get(CURSOR_KEY);
+		String cursor = saved != null ? saved : CartPage.START;
+		if (saved != null) {
+			log.info("Resuming cart re-pricing from cursor {}", cursor);
+		} else {
+			passScanned.set(0);
+		}
+
+		CartPage page;
+		do {
+			long start = System.nanoTime();
+			page = cartOperations.scanCarts(cursor, pageSize);
+			long changed = reprice(page.carts());
+			pageTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+			cartsScanned.increment(page.carts().size());
+			itemsRepriced.increment(changed);
+			passScanned.addAndGet(page.carts().size());
+
+			cursor = page.nextCursor();
+			if (!page.isLast()) {
+				redisTemplate.opsForValue().set(CURSOR_KEY, cursor);
+				redisTemplate.expire(LOCK_KEY, lockTtl);
+				if (!pace(page.carts().size(), System.nanoTime() - start)) {
+					return;
+				}
+			}
+		} while (!page.isLast());
+
+		lastPassMillis = System.currentTimeMillis();
+		redisTemplate.opsForValue().set(LAST_PASS_KEY, String.valueOf(lastPassMillis));
+		redisTemplate.delete(CURSOR_KEY);
+		log.info("Cart re-pricing pass complete: {} carts scanned", passScanned.get());
+	}
+
+	/**
+	 * Compara os itens da pagina com o catalogo e grava so os que mudaram.
+	 * Produtos ausentes do catalogo ou sem preco ficam como estao.
+	 */
+	private long reprice(List<Cart> carts) {
+		Set<String> productIds = new LinkedHashSet<>();
+		carts.forEach(cart -> productIds.addAll(cart.getItems().keySet()));
+		if (productIds.isEmpty()) {
+			return 0;
+		}
+		Map<String, ProductDTO> products = productServiceClient.getProductsByIds(productIds);
+
+		Map<String, List<CartItem>> corrections = new LinkedHashMap<>();
+		for (Cart cart : carts) {
+			for (CartItem item : cart.getItems().values()) {
+				ProductDTO product = products.get(item.getProductId());
+				if (product == null || product.getPrice() == null) {
+					continue;
+				}
+				long priceCents = Money.toCents(product.getPrice());
+				String name = product.getName() != null ? product.getName() : item.getProductName();
+				if (priceCents != item.getPriceCents() || !Objects.equals(name, item.getProductName())) {
+					corrections.computeIfAbsent(cart.getUserId(), userId -> new ArrayList<>())
+							.add(item.toBuilder().priceCents(priceCents).productName(name).build());
+				}
+			}
+		}
+		if (corrections.isEmpty()) {
+			return 0;
+		}
+
+		long changed = cartOperations.repriceItems(corrections);
+		if (nearCache != null) {
+			corrections.keySet().forEach(nearCache::invalidate);
+		}
+		return changed;
+	}
+
+	/**
+	 * Dorme o necessario para manter {@code rate} carrinhos por segundo.
+	 * Retorna false se a thread foi interrompida (desligamento).
+	 */
+	private boolean pace(int scanned, long elapsedNanos) {
+		if (rate <= 0) {
+			return true;
+		}
+		long budgetNanos = (long) (scanned / rate * TimeUnit.SECONDS.toNanos(1));
+		long sleepNanos = budgetNanos - elapsedNanos;
+		if (sleepNanos <= 0) {
+			return true;
+		}
+		try {
+			TimeUnit.NANOSECONDS.sleep(sleepNanos);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private void releaseLock() {
+		// Pode ter expirado e sido tomado por outra instancia durante uma pausa longa
+		if (instanceId.equals(redisTemplate.opsForValue().get(LOCK_KEY))) {
+			redisTemplate.delete(LOCK_KEY);
+		}
+	}
+}
@@ -1,14 +1,28 @@
 package com.rgdasil.cart_service.service;
 
+import java.util.List;
+import java.util.Optional;
+
 import com.rgdasil.cart_service.domain.Cart;
 import com.rgdasil.cart_service.dto.AddItemRequest;
+import com.rgdasil.cart_service.dto.BulkAddItemsResponse;
 
 public interface CartService {
 	
 	public Cart addItemToCart(String userId, AddItemRequest addItemRequest);
 	
+	public BulkAddItemsResponse addItemsToCart(String userId, List<AddItemRequest> addItemRequests);
+	
+	public Cart updateItemQuantity(String userId, String productId, Integer quantity);
+	
+	public Cart removeItem(String userId, String productId);
+	
+	public Cart mergeCart(String userId, String sourceCartId);
+	
 	public Cart getCart(String userId);
 	
+	public Optional<Long> getCartVersion(String userId);
+	
 	public void deleteCart(String userId);
 
 }
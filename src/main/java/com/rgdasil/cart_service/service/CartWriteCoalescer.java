@@ -0,0 +1,223 @@
+package com.rgdasil.cart_service.service;
+
+import com.rgdasil.cart_service.domain.Cart;
+import com.rgdasil.cart_service.domain.CartItem;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Junta as adicoes de itens de um mesmo usuario que chegam dentro de
+ * {@code window} numa unica escrita no Redis (group commit). A primeira
+ * requisicao do lote e a lider: segura o lote aberto pela janela, soma os
+ * itens repetidos e escreve por todos; as demais esperam e recebem o mesmo
+ * carrinho, que ja inclui a sua alteracao. Uma falha na escrita chega a todos
+ * os chamadores do lote.
+ *
+ * Os lotes de um usuario sao escritos na ordem em que foram abertos: o lider
+ * espera a escrita do lote anterior terminar antes de escrever. No
+ * desligamento os lotes abertos sao escritos na hora e novas adicoes vao
+ * direto ao Redis.
+ */
+@Component
+@ConditionalOnProperty(name = "cart.write.coalescing.enabled", havingValue = "true")
+public class CartWriteCoalescer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CartWriteCoalescer.class);
+
+    private final long windowNanos;
+    private final Duration shutdownTimeout;
+    private final ConcurrentHashMap<String, Batch> open = new ConcurrentHashMap<>();
+    // Escrita mais recente de cada usuario, para ordenar os lotes
+    private final ConcurrentHashMap<String, CompletableFuture<Cart>> lastWrite = new ConcurrentHashMap<>();
+    private volatile boolean accepting = true;
+
+    private final Counter mutations;
+    private final Counter writes;
+    private final DistributionSummary batchSize;
+
+    @Autowired
+    public CartWriteCoalescer(@Value("${cart.write.coalescing.window:50ms}") Duration window,
+                              @Value("${cart.write.coalescing.shutdown-timeout:5s}") Duration shutdownTimeout,
+                              ObjectProvider<MeterRegistry> meterRegistry) {
+        this(window, shutdownTimeout, meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    public CartWriteCoalescer(Duration window, Duration shutdownTimeout, MeterRegistry meterRegistry) {
+        this.windowNanos = window.toNanos();
+        this.shutdownTimeout = shutdownTimeout;
+        this.mutations = Counter.builder("cart.write.coalescing.mutations")
+                .description("Cart mutations submitted to the write coalescer")
+                .register(meterRegistry);
+        this.writes = Counter.builder("cart.write.coalescing.writes")
+                .description("Redis writes issued by the write coalescer")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("cart.write.coalescing.batch.size")
+                .description("Mutations folded into each Redis write")
+                .register(meterRegistry);
+        Gauge.builder("cart.write.coalescing.ratio", this, CartWriteCoalescer::getCoalescingRatio)
+                .description("Mutations per Redis write since startup")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Adiciona {@code item} ao carrinho de {@code userId} pelo lote aberto do
+     * usuario. {@code writer} grava os itens do lote numa unica escrita e
+     * devolve o carrinho atualizado.
+     */
+    public Cart add(String userId, CartItem item, BiFunction<String, List<CartItem>, Cart> writer) {
+        mutations.increment();
+        if (!accepting) {
+            return write(userId, List.of(item), writer, 1);
+        }
+
+        Batch batch;
+        boolean leader;
+        while (true) {
+            Batch created = new Batch();
+            Batch existing = open.putIfAbsent(userId, created);
+            batch = existing != null ? existing : created;
+            leader = existing == null;
+            synchronized (batch) {
+                if (!batch.closed) {
+                    batch.items.add(item);
+                    break;
+                }
+            }
+            // O lote fechou entre o putIfAbsent e o lock: abre ou entra no proximo
+        }
+
+        if (!leader) {
+            return await(batch.result);
+        }
+        return lead(userId, batch, writer);
+    }
+
+    public double getCoalescingRatio() {
+        double count = writes.count();
+        return count == 0 ? 0 : mutations.count() / count;
+    }
+
+    @Override
+    public void start() {
+        accepting = true;
+    }
+
+    /**
+     * Fecha os lotes abertos na hora, sem esperar o fim da janela, e espera as
+     * escritas terminarem ate {@code shutdownTimeout}.
+     */
+    @Override
+    public void stop() {
+        accepting = false;
+        List<CompletableFuture<Cart>> pending = new ArrayList<>(lastWrite.values());
+        open.values().forEach(batch -> batch.flushNow.countDown());
+        try {
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new))
+                    .get(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("Cart writes still pending at shutdown: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return accepting;
+    }
+
+    private Cart lead(String userId, Batch batch, BiFunction<String, List<CartItem>, Cart> writer) {
+        CompletableFuture<Cart> previous = lastWrite.put(userId, batch.result);
+        try {
+            // Segura o lote aberto pela janela; o desligamento o libera antes
+            batch.flushNow.await(windowNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<CartItem> items;
+        synchronized (batch) {
+            batch.closed = true;
+            items = batch.items;
+            // Sai do mapa no mesmo lock que o fecha: quem o encontrar fechado ja abre o proximo
+            open.remove(userId, batch);
+        }
+
+        try {
+            if (previous != null) {
+                // So a ordem importa: uma falha do lote anterior ja chegou aos chamadores dele
+                previous.handle((cart, error) -> null).join();
+            }
+            Cart cart = write(userId, fold(items), writer, items.size());
+            batch.result.complete(cart);
+            return cart;
+        } catch (RuntimeException e) {
+            batch.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            lastWrite.remove(userId, batch.result);
+        }
+    }
+
+    private Cart write(String userId, List<CartItem> items, BiFunction<String, List<CartItem>, Cart> writer,
+                       int folded) {
+        writes.increment();
+        batchSize.record(folded);
+        if (folded > 1) {
+            log.debug("Coalesced {} cart mutations into one write for user {}", folded, userId);
+        }
+        return writer.apply(userId, items);
+    }
+
+    /** Uma entrada por produto, somando as quantidades e com os dados do ultimo item. */
+    private static List<CartItem> fold(List<CartItem> items) {
+        Map<String, CartItem> folded = new LinkedHashMap<>();
+        for (CartItem item : items) {
+            folded.merge(item.getProductId(), item,
+                    (previous, next) -> next.withQuantity(previous.getQuantity() + next.getQuantity()));
+        }
+        return new ArrayList<>(folded.values());
+    }
+
+    private static Cart await(CompletableFuture<Cart> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Batch {
+        final List<CartItem> items = new ArrayList<>();
+        final CompletableFuture<Cart> result = new CompletableFuture<>();
+        final CountDownLatch flushNow = new CountDownLatch(1);
+        // Guardado pelo lock do lote: fechado, ninguem mais entra
+        boolean closed;
+    }
+}
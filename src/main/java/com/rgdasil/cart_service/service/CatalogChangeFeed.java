@@ -0,0 +1,245 @@
+package com.rgdasil.cart_service.service;
+
+import com.rgdasil.cart_service.dto.ProductDTO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer.StreamMessageListenerContainerOptions;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer.StreamReadRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Alimenta a {@link CatalogReplica} a partir do stream de mudancas de produto
+ * (um Redis Stream publicado pelo product-service). Cada evento e um hash com
+ * {@code op} ({@code upsert} ou {@code delete}), {@code id}, {@code name},
+ * {@code price}, {@code stock} e {@code updated_at} (ISO-8601).
+ *
+ * Na partida a replica, que so vive em memoria, e reconstruida lendo o stream
+ * retido; depois um XREAD simples continua do ultimo evento lido. Nao ha
+ * consumer group: todas as instancias precisam de todos os eventos e a
+ * posicao nao precisa sobreviver a um restart, ja que a replica e refeita do
+ * stream. Uma ressincronizacao periodica consulta o product-service em lote
+ * para os produtos conhecidos, cobrindo eventos que ja sairam do stream.
+ */
+public class CatalogChangeFeed implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogChangeFeed.class);
+
+    private final CatalogReplica replica;
+    private final ProductServiceClient productServiceClient;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisConnectionFactory connectionFactory;
+    private final String stream;
+    private final int batchSize;
+
+    private final Counter upserts;
+    private final Counter deletes;
+    private final Counter invalid;
+
+    private StreamMessageListenerContainer<String, MapRecord<String, String, String>> container;
+    private volatile boolean running;
+    private volatile boolean ready;
+
+    public CatalogChangeFeed(CatalogReplica replica, ProductServiceClient productServiceClient,
+                             StringRedisTemplate redisTemplate, RedisConnectionFactory connectionFactory,
+                             String stream, int batchSize, MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.productServiceClient = productServiceClient;
+        this.redisTemplate = redisTemplate;
+        this.connectionFactory = connectionFactory;
+        this.stream = stream;
+        this.batchSize = batchSize;
+        this.upserts = events(meterRegistry, "upsert");
+        this.deletes = events(meterRegistry, "delete");
+        this.invalid = events(meterRegistry, "invalid");
+        Gauge.builder("catalog.replica.ready", this, feed -> feed.isReady() ? 1 : 0)
+                .description("1 once the catalog replica was rebuilt from the change stream")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        container = StreamMessageListenerContainer.create(connectionFactory,
+                StreamMessageListenerContainerOptions.builder()
+                        .pollTimeout(Duration.ofSeconds(1))
+                        .batchSize(batchSize)
+                        .build());
+        container.start();
+        running = true;
+        bootstrap();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (container != null) {
+            container.stop();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Ressincroniza os produtos conhecidos com o product-service. Se a partida
+     * falhou (Redis fora do ar), tenta a partida de novo em vez disso.
+     */
+    @Scheduled(fixedDelayString = "${catalog.replica.resync-interval:PT15M}",
+            initialDelayString = "${catalog.replica.resync-interval:PT15M}")
+    public void resync() {
+        if (!ready) {
+            bootstrap();
+            return;
+        }
+
+        List<String> productIds = new ArrayList<>(replica.knownIds());
+        int refreshed = 0;
+        try {
+            for (int from = 0; from < productIds.size(); from += batchSize) {
+                List<String> chunk = productIds.subList(from, Math.min(from + batchSize, productIds.size()));
+                Map<String, ProductDTO> products = productServiceClient.getProductsByIds(chunk);
+                long removedAt = System.currentTimeMillis();
+                for (String productId : chunk) {
+                    ProductDTO product = products.get(productId);
+                    if (product != null) {
+                        replica.upsert(product);
+                    } else {
+                        replica.remove(productId, removedAt);
+                    }
+                }
+                refreshed += chunk.size();
+            }
+            log.info("Catalog replica resynced: {} products", refreshed);
+        } catch (RuntimeException e) {
+            // A replica continua servindo o que tem; a proxima rodada tenta de novo
+            log.warn("Catalog replica resync stopped after {} products: {}", refreshed, e.getMessage());
+        }
+    }
+
+    void apply(Map<?, ?> event) {
+        String productId = field(event, "id");
+        if (productId == null || productId.isBlank()) {
+            invalid.increment();
+            log.warn("Ignoring product change without id: {}", event);
+            return;
+        }
+        try {
+            OffsetDateTime updatedAt = parse(field(event, "updated_at"), OffsetDateTime::parse);
+            if ("delete".equalsIgnoreCase(field(event, "op"))) {
+                replica.remove(productId, CatalogReplica.version(updatedAt));
+                deletes.increment();
+                return;
+            }
+            replica.upsert(ProductDTO.builder()
+                    .id(productId)
+                    .name(field(event, "name"))
+                    .price(parse(field(event, "price"), Double::valueOf))
+                    .stock(parse(field(event, "stock"), Integer::valueOf))
+                    .updatedAt(updatedAt)
+                    .build());
+            upserts.increment();
+        } catch (NumberFormatException | DateTimeParseException e) {
+            invalid.increment();
+            log.warn("Ignoring malformed product change for {}: {}", productId, e.getMessage());
+        }
+    }
+
+    private synchronized void bootstrap() {
+        if (ready) {
+            return;
+        }
+        try {
+            Replay replay = replay();
+            // Continua do ultimo evento aplicado: nada e perdido nem reaplicado entre o replay e o XREAD
+            container.register(StreamReadRequest.builder(StreamOffset.create(stream, ReadOffset.from(replay.lastId())))
+                            // Erros de conexao nao derrubam a assinatura; o container tenta de novo
+                            .cancelOnError(e -> false)
+                            .build(),
+                    message -> apply(message.getValue()));
+            ready = true;
+            log.info("Catalog replica rebuilt from {} events of stream {}", replay.events(), stream);
+        } catch (RuntimeException e) {
+            log.warn("Catalog replica bootstrap failed, serving lookups from product-service: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reconstroi a replica lendo todo o stream retido, em paginas. Devolve o id
+     * do ultimo evento lido ({@code 0} com o stream vazio).
+     */
+    private Replay replay() {
+        int replayed = 0;
+        String from = "-";
+        while (true) {
+            List<MapRecord<String, Object, Object>> page = redisTemplate.opsForStream().range(stream,
+                    Range.rightUnbounded(Range.Bound.inclusive(from)), Limit.limit().count(batchSize + 1));
+            if (page == null || page.isEmpty()) {
+                return new Replay(replayed, from);
+            }
+            String last = from;
+            for (MapRecord<String, Object, Object> record : page) {
+                // O limite inferior e inclusivo: o primeiro registro da pagina ja foi aplicado
+                if (record.getId().getValue().equals(from)) {
+                    continue;
+                }
+                apply(record.getValue());
+                last = record.getId().getValue();
+                replayed++;
+            }
+            if (last.equals(from)) {
+                return new Replay(replayed, from);
+            }
+            from = last;
+        }
+    }
+
+    private record Replay(int events, String lastId) {
+
+        Replay {
+            lastId = "-".equals(lastId) ? "0" : lastId;
+        }
+    }
+
+    private static String field(Map<?, ?> event, String name) {
+        Object value = event.get(name);
+        return value != null ? value.toString() : null;
+    }
+
+    private static <T> T parse(String value, Function<String, T> parser) {
+        return value == null || value.isBlank() ? null : parser.apply(value.trim());
+    }
+
+    private static Counter events(MeterRegistry meterRegistry, String op) {
+        return Counter.builder("catalog.replica.events")
+                .description("Product change events applied to the local catalog replica")
+                .tag("op", op)
+                .register(meterRegistry);
+    }
+}
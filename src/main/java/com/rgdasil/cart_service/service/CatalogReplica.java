@@ -0,0 +1,105 @@
+package com.rgdasil.cart_service.service;
+
+import com.rgdasil.cart_service.domain.Money;
+import com.rgdasil.cart_service.dto.ProductDTO;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Copia local, em memoria, dos campos de produto que o carrinho usa: nome,
+ * preco e estoque. E alimentada pelo {@link CatalogChangeFeed} e consultada
+ * pelo {@link ReplicatedProductServiceClient} sem ida a rede.
+ *
+ * Cada produto ocupa um registro pequeno (preco em centavos, sem descricao),
+ * em vez do {@link ProductDTO} inteiro. A versao de cada produto e o seu
+ * {@code updated_at}: eventos mais antigos que a versao atual sao descartados,
+ * entao reprocessar o stream ou receber eventos fora de ordem nao volta um
+ * produto no tempo. Remocoes ficam como marcadores pelo mesmo motivo.
+ */
+public class CatalogReplica {
+
+    private static final long NO_PRICE = Long.MIN_VALUE;
+    private static final int NO_STOCK = Integer.MIN_VALUE;
+
+    private record Entry(String name, long priceCents, int stock, long version, boolean deleted) {
+    }
+
+    private final ConcurrentHashMap<String, Entry> products;
+
+    public CatalogReplica(int initialCapacity) {
+        this.products = new ConcurrentHashMap<>(initialCapacity);
+    }
+
+    public void bindMetrics(MeterRegistry meterRegistry) {
+        Gauge.builder("catalog.replica.size", this, CatalogReplica::size)
+                .description("Products held in the local catalog replica")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Produto conhecido e nao removido. Vazio significa "nao sei", nao 404:
+     * quem chama decide se consulta o product-service.
+     */
+    public Optional<ProductDTO> get(String productId) {
+        Entry entry = products.get(productId);
+        if (entry == null || entry.deleted()) {
+            return Optional.empty();
+        }
+        return Optional.of(ProductDTO.builder()
+                .id(productId)
+                .name(entry.name())
+                .price(entry.priceCents() != NO_PRICE ? Money.toDecimal(entry.priceCents()).doubleValue() : null)
+                .stock(entry.stock() != NO_STOCK ? entry.stock() : null)
+                .updatedAt(entry.version() > 0
+                        ? OffsetDateTime.ofInstant(Instant.ofEpochMilli(entry.version()), ZoneOffset.UTC)
+                        : null)
+                .build());
+    }
+
+    public void upsert(ProductDTO product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        Entry entry = new Entry(product.getName(),
+                product.getPrice() != null ? Money.toCents(product.getPrice()) : NO_PRICE,
+                product.getStock() != null ? product.getStock() : NO_STOCK,
+                version(product.getUpdatedAt()),
+                false);
+        products.merge(product.getId(), entry, CatalogReplica::newer);
+    }
+
+    public void remove(String productId, long version) {
+        products.merge(productId, new Entry(null, NO_PRICE, NO_STOCK, version, true), CatalogReplica::newer);
+    }
+
+    /** IDs dos produtos presentes (sem os removidos), para a ressincronizacao. */
+    public Set<String> knownIds() {
+        return products.entrySet().stream()
+                .filter(entry -> !entry.getValue().deleted())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    public int size() {
+        return products.size();
+    }
+
+    static long version(OffsetDateTime updatedAt) {
+        return updatedAt != null ? updatedAt.toInstant().toEpochMilli() : 0L;
+    }
+
+    // Em empate vence o mais recente a chegar; versao 0 (sem updated_at) sempre aplica
+    private static Entry newer(Entry current, Entry candidate) {
+        return candidate.version() == 0 || candidate.version() >= current.version() ? candidate : current;
+    }
+}
@@ -0,0 +1,122 @@
+package com.rgdasil.cart_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rgdasil.cart_service.dto.ProductDTO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Agrupa buscas concorrentes pelo mesmo produto numa unica chamada
+ * (single-flight). Quem chega enquanto uma busca esta em andamento espera e
+ * recebe o mesmo resultado, ou a mesma excecao.
+ */
+public class CoalescingProductServiceClient implements ProductServiceClient {
+
+    private static final Logger log = LoggerFactory.getLogger(CoalescingProductServiceClient.class);
+
+    private final ProductServiceClient delegate;
+    private final ConcurrentHashMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final Cache<String, LongAdder> coalescedByProduct = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+
+    private final Counter coalescedCounter;
+    private final DistributionSummary waitersPerFlight;
+
+    public CoalescingProductServiceClient(ProductServiceClient delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.coalescedCounter = Counter.builder("product.lookup.coalesced")
+                .description("Product lookups served by an in-flight call for the same ID")
+                .register(meterRegistry);
+        this.waitersPerFlight = DistributionSummary.builder("product.lookup.flight.waiters")
+                .description("Callers that joined each in-flight product lookup")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Optional<ProductDTO> getProductById(String productId) {
+        Flight flight = new Flight();
+        Flight existing = inFlight.putIfAbsent(productId, flight);
+
+        if (existing != null) {
+            existing.waiters.incrementAndGet();
+            coalescedCounter.increment();
+            coalescedByProduct.get(productId, id -> new LongAdder()).increment();
+            return await(existing);
+        }
+
+        try {
+            Optional<ProductDTO> product = delegate.getProductById(productId);
+            flight.result.complete(product);
+            return product;
+        } catch (Throwable e) {
+            // Inclui Error: os chamadores agrupados nunca podem ficar esperando um resultado que nao vem
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(productId, flight);
+            int waiters = flight.waiters.get();
+            waitersPerFlight.record(waiters);
+            if (waiters > 0) {
+                log.debug("Coalesced {} callers into one lookup for product ID {}", waiters, productId);
+            }
+        }
+    }
+
+    @Override
+    public Map<String, ProductDTO> getProductsByIds(Collection<String> productIds) {
+        // Lotes ja sao uma unica chamada; seguem direto para o delegate
+        return delegate.getProductsByIds(productIds);
+    }
+
+    /**
+     * Produtos com mais chamadas agrupadas, do maior para o menor.
+     */
+    public Map<String, Long> topCoalesced(int limit) {
+        Map<String, Long> top = new LinkedHashMap<>();
+        coalescedByProduct.asMap().entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
+    }
+
+    private Optional<ProductDTO> await(Flight flight) {
+        try {
+            return flight.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Flight {
+        private final CompletableFuture<Optional<ProductDTO>> result = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger();
+    }
+}
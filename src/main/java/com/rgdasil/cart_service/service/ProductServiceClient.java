@@ -1,9 +1,25 @@
 package com.rgdasil.cart_service.service;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Optional;
 
 import com.rgdasil.cart_service.dto.ProductDTO;
 
 public interface ProductServiceClient {
 	Optional<ProductDTO> getProductById(String productId);
+
+	/**
+	 * Busca varios produtos de uma vez. IDs inexistentes ficam de fora do mapa
+	 * retornado. A implementacao padrao faz uma busca por ID.
+	 */
+	default Map<String, ProductDTO> getProductsByIds(Collection<String> productIds) {
+		Map<String, ProductDTO> products = new LinkedHashMap<>();
+		for (String productId : new LinkedHashSet<>(productIds)) {
+			getProductById(productId).ifPresent(product -> products.put(productId, product));
+		}
+		return products;
+	}
 }
@@ -0,0 +1,21 @@
+package com.rgdasil.cart_service.service;
+
+import java.util.List;
+
+import com.rgdasil.cart_service.domain.Cart;
+import com.rgdasil.cart_service.dto.AddItemRequest;
+import com.rgdasil.cart_service.dto.BulkAddItemsResponse;
+
+import reactor.core.publisher.Mono;
+
+public interface ReactiveCartService {
+	
+	public Mono<Cart> addItemToCart(String userId, AddItemRequest addItemRequest);
+	
+	public Mono<BulkAddItemsResponse> addItemsToCart(String userId, List<AddItemRequest> addItemRequests);
+	
+	public Mono<Cart> getCart(String userId);
+	
+	public Mono<Void> deleteCart(String userId);
+
+}
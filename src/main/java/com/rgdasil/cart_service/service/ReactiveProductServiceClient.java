@@ -0,0 +1,20 @@
+package com.rgdasil.cart_service.service;
+
+import java.util.Collection;
+import java.util.Map;
+
+import com.rgdasil.cart_service.dto.ProductDTO;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Versao nao bloqueante do {@link ProductServiceClient}. Produto inexistente
+ * e um {@link Mono} vazio.
+ */
+public interface ReactiveProductServiceClient {
+
+	Mono<ProductDTO> getProductById(String productId);
+
+	Mono<Map<String, ProductDTO>> getProductsByIds(Collection<String> productIds);
+
+}
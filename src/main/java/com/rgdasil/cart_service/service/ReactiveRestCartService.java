@@ -0,0 +1,123 @@
+package com.rgdasil.cart_service.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import com.rgdasil.cart_service.domain.Cart;
+import com.rgdasil.cart_service.domain.CartItem;
+import com.rgdasil.cart_service.domain.Money;
+import com.rgdasil.cart_service.dto.AddItemRequest;
+import com.rgdasil.cart_service.dto.BulkAddItemsResponse;
+import com.rgdasil.cart_service.dto.ItemResult;
+import com.rgdasil.cart_service.dto.ProductDTO;
+import com.rgdasil.cart_service.exception.CartNotFoundException;
+import com.rgdasil.cart_service.exception.ProductNotFoundException;
+import com.rgdasil.cart_service.repository.ReactiveCartRepository;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Versao nao bloqueante do {@link RestCartService}, usada no perfil
+ * {@code reactive}. As mutacoes sempre vao para o Redis como script atomico.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveRestCartService implements ReactiveCartService {
+
+	private final ReactiveCartRepository cartRepository;
+	private final ReactiveProductServiceClient productServiceClient;
+
+	public ReactiveRestCartService(ReactiveCartRepository cartRepository,
+			ReactiveProductServiceClient productServiceClient) {
+		this.cartRepository = cartRepository;
+		this.productServiceClient = productServiceClient;
+	}
+
+	@Override
+	public Mono<Cart> addItemToCart(String userId, AddItemRequest addItemRequest) {
+
+		String productId = addItemRequest.getProductId();
+		return productServiceClient.getProductById(productId)
+				.switchIfEmpty(Mono.error(() -> new ProductNotFoundException("Product ID:" + productId + " not found.")))
+				.flatMap(productDTO -> cartRepository.addItems(userId,
+						List.of(toItem(productDTO, productId, addItemRequest.getQuantity()))));
+	}
+
+	@Override
+	public Mono<BulkAddItemsResponse> addItemsToCart(String userId, List<AddItemRequest> addItemRequests) {
+
+		// Uma unica busca em lote para todos os produtos validos
+		List<String> productIds = addItemRequests.stream()
+				.filter(ReactiveRestCartService::isValid)
+				.map(AddItemRequest::getProductId)
+				.distinct()
+				.toList();
+		Mono<Map<String, ProductDTO>> products = productIds.isEmpty()
+				? Mono.just(Map.of())
+				: productServiceClient.getProductsByIds(productIds);
+
+		return products.flatMap(found -> {
+			List<ItemResult> results = new ArrayList<>();
+			List<CartItem> accepted = new ArrayList<>();
+
+			for (AddItemRequest addItemRequest : addItemRequests) {
+				String productId = addItemRequest.getProductId();
+				ItemResult.ItemResultBuilder result = ItemResult.builder()
+						.productId(productId)
+						.quantity(addItemRequest.getQuantity());
+
+				if (!isValid(addItemRequest)) {
+					results.add(result.status(ItemResult.Status.INVALID)
+							.message("Product ID and a positive quantity are required.").build());
+					continue;
+				}
+
+				ProductDTO productDTO = found.get(productId);
+				if (productDTO == null) {
+					results.add(result.status(ItemResult.Status.NOT_FOUND)
+							.message("Product ID:" + productId + " not found.").build());
+					continue;
+				}
+
+				accepted.add(toItem(productDTO, productId, addItemRequest.getQuantity()));
+				results.add(result.status(ItemResult.Status.ADDED).build());
+			}
+
+			Mono<Cart> cart = accepted.isEmpty()
+					? cartRepository.findById(userId).defaultIfEmpty(Cart.builder().userId(userId).build())
+					: cartRepository.addItems(userId, accepted);
+			return cart.map(updated -> new BulkAddItemsResponse(updated, results));
+		});
+	}
+
+	@Override
+	public Mono<Cart> getCart(String userId) {
+		return cartRepository.findById(userId)
+				.switchIfEmpty(Mono.error(() -> new CartNotFoundException("Cart ID: " + userId + " not found")));
+	}
+
+	@Override
+	public Mono<Void> deleteCart(String userId) {
+		return cartRepository.deleteById(userId);
+	}
+
+	private static CartItem toItem(ProductDTO productDTO, String productId, Integer quantity) {
+		return CartItem.builder()
+				.productId(productId)
+				.quantity(quantity)
+				.productName(productDTO.getName())
+				.priceCents(productDTO.getPrice() != null ? Money.toCents(productDTO.getPrice()) : null)
+				.build();
+	}
+
+	private static boolean isValid(AddItemRequest addItemRequest) {
+		return addItemRequest.getProductId() != null
+				&& addItemRequest.getQuantity() != null
+				&& addItemRequest.getQuantity() > 0;
+	}
+
+}
@@ -0,0 +1,95 @@
+package com.rgdasil.cart_service.service;
+
+import com.rgdasil.cart_service.dto.ProductDTO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Responde pela {@link CatalogReplica} local, sem ida a rede, e so consulta
+ * o {@code delegate} para produtos que a replica ainda nao conhece. O que vem
+ * do delegate entra na replica. Com a replica aquecida o carrinho continua
+ * validando produtos mesmo com o product-service fora do ar.
+ */
+public class ReplicatedProductServiceClient implements ProductServiceClient {
+
+    private final CatalogReplica replica;
+    private final ProductServiceClient delegate;
+
+    private Counter hits;
+    private Counter misses;
+
+    public ReplicatedProductServiceClient(CatalogReplica replica, ProductServiceClient delegate) {
+        this.replica = replica;
+        this.delegate = delegate;
+    }
+
+    public void bindMetrics(MeterRegistry meterRegistry) {
+        this.hits = lookups(meterRegistry, "hit");
+        this.misses = lookups(meterRegistry, "miss");
+    }
+
+    @Override
+    public Optional<ProductDTO> getProductById(String productId) {
+        Optional<ProductDTO> replicated = replica.get(productId);
+        if (replicated.isPresent()) {
+            count(hits, 1);
+            return replicated;
+        }
+
+        count(misses, 1);
+        Optional<ProductDTO> product = delegate.getProductById(productId);
+        product.ifPresent(replica::upsert);
+        return product;
+    }
+
+    @Override
+    public Map<String, ProductDTO> getProductsByIds(Collection<String> productIds) {
+        Map<String, ProductDTO> products = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String productId : new LinkedHashSet<>(productIds)) {
+            replica.get(productId).ifPresentOrElse(
+                    product -> products.put(productId, product),
+                    () -> missing.add(productId));
+        }
+        count(hits, products.size());
+        count(misses, missing.size());
+
+        if (!missing.isEmpty()) {
+            delegate.getProductsByIds(missing).forEach((productId, product) -> {
+                replica.upsert(product);
+                products.put(productId, product);
+            });
+        }
+
+        Map<String, ProductDTO> ordered = new LinkedHashMap<>();
+        for (String productId : productIds) {
+            ProductDTO product = products.get(productId);
+            if (product != null) {
+                ordered.put(productId, product);
+            }
+        }
+        return ordered;
+    }
+
+    private static void count(Counter counter, int amount) {
+        if (counter != null && amount > 0) {
+            counter.increment(amount);
+        }
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("catalog.replica.lookups")
+                .description("Product lookups answered by the local catalog replica (hit) or sent to product-service (miss)")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
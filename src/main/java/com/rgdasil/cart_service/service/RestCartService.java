@@ -1,64 +1,437 @@
 package com.rgdasil.cart_service.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.rgdasil.cart_service.domain.Cart;
 import com.rgdasil.cart_service.domain.CartItem;
+import com.rgdasil.cart_service.domain.CartMergePolicy;
+import com.rgdasil.cart_service.domain.Money;
 import com.rgdasil.cart_service.dto.AddItemRequest;
+import com.rgdasil.cart_service.dto.BulkAddItemsResponse;
+import com.rgdasil.cart_service.dto.ItemResult;
 import com.rgdasil.cart_service.dto.ProductDTO;
 import com.rgdasil.cart_service.exception.CartNotFoundException;
+import com.rgdasil.cart_service.exception.InvalidCartMergeException;
+import com.rgdasil.cart_service.exception.InvalidQuantityException;
 import com.rgdasil.cart_service.exception.ProductNotFoundException;
+import com.rgdasil.cart_service.metrics.HopMetrics;
+import com.rgdasil.cart_service.repository.CartOperations;
 import com.rgdasil.cart_service.repository.CartRepository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 @Service
 public class RestCartService implements CartService {
 
 	CartRepository cartRepository;
+	CartOperations cartOperations;
 	ProductServiceClient productServiceClient;
 	
+	// Mutacoes atomicas no Redis (scripts) em vez de ler e regravar o carrinho inteiro
+	@Value("${cart.mutation.atomic:true}")
+	private boolean atomicMutations;
+	
+	// Merge do carrinho de convidado no login: politica de quantidade, revalidacao
+	// dos produtos e prefixo que identifica um carrinho de convidado
+	private final String mergePolicy;
+	private final boolean revalidateOnMerge;
+	private final String guestCartPrefix;
+	
+	// Carrega o carrinho em paralelo com a busca do produto
+	private final Executor cartLoadExecutor;
+	
+	private final MeterRegistry meterRegistry;
+	private final HopMetrics hopMetrics;
+	
+	// Presente so com cache.cart.near.enabled=true
+	@Autowired(required = false)
+	private CartNearCache nearCache;
+	
+	// Presente so com cart.write.coalescing.enabled=true
+	private final CartWriteCoalescer writeCoalescer;
+	
 	@Autowired
-	public RestCartService(CartRepository cartRepository, ProductServiceClient productServiceClient) {
+	public RestCartService(CartRepository cartRepository, CartOperations cartOperations,
+			ProductServiceClient productServiceClient,
+			@Qualifier("cartLoadExecutor") Executor cartLoadExecutor,
+			MeterRegistry meterRegistry, HopMetrics hopMetrics,
+			Optional<CartWriteCoalescer> writeCoalescer,
+			@Value("${cart.merge.policy:sum}") String mergePolicy,
+			@Value("${cart.merge.revalidate:false}") boolean revalidateOnMerge,
+			@Value("${cart.merge.guest-prefix:guest-}") String guestCartPrefix) {
 		this.cartRepository = cartRepository;
+		this.cartOperations = cartOperations;
 		this.productServiceClient = productServiceClient;
+		this.cartLoadExecutor = cartLoadExecutor;
+		this.meterRegistry = meterRegistry;
+		this.hopMetrics = hopMetrics;
+		this.writeCoalescer = writeCoalescer.orElse(null);
+		this.mergePolicy = mergePolicy;
+		this.revalidateOnMerge = revalidateOnMerge;
+		this.guestCartPrefix = guestCartPrefix;
 	}
 	
 	@Override
 	public Cart addItemToCart(String userId, AddItemRequest addItemRequest) {
 
 		String productId = addItemRequest.getProductId();
-		ProductDTO productDTO = productServiceClient.getProductById(productId)
-				.orElseThrow(() -> new ProductNotFoundException("Product ID:" + productId + " not found."));
 		
+		if (writeCoalescer != null) {
+			return addItemCoalesced(userId, productId, addItemRequest.getQuantity());
+		}
+		
+		if (atomicMutations) {
+			ProductDTO productDTO = findProduct(productId);
+			Cart cart = timed("save", () -> cartOperations.addItems(userId,
+					List.of(toItem(productDTO, productId, addItemRequest.getQuantity()))));
+			invalidateNearCache(userId);
+			hopMetrics.recordCartSize(cart);
+			return cart;
+		}
+		
+		// Busca do produto e leitura do carrinho sao independentes: rodam em paralelo
+		FutureTask<Optional<Cart>> cartLoad = new FutureTask<>(
+				() -> timed("cart-load", () -> cartRepository.findById(userId)));
+		cartLoadExecutor.execute(cartLoad);
+
+		ProductDTO productDTO;
+		try {
+			productDTO = findProduct(productId);
+		} catch (RuntimeException e) {
+			// Produto inexistente ou product-service fora: a leitura nao serve mais
+			cartLoad.cancel(true);
+			throw e;
+		}
+
+		Cart cart = timed("cart-wait", () -> awaitCart(cartLoad))
+				.orElse(Cart.builder().userId(userId).build());
+
+		cart.addItem(toItem(productDTO, productId, addItemRequest.getQuantity()));
+		cart.incrementVersion();
+		Cart saved = timed("save", () -> cartRepository.save(cart));
+		invalidateNearCache(userId);
+		hopMetrics.recordCartSize(saved);
+		return saved;
+	}
+	
+	/**
+	 * Adicoes do mesmo usuario dentro da janela do {@link CartWriteCoalescer}
+	 * viram uma unica escrita. O produto continua sendo buscado por requisicao.
+	 */
+	private Cart addItemCoalesced(String userId, String productId, Integer quantity) {
+		CartItem item = toItem(findProduct(productId), productId, quantity);
+		Cart cart = timed("save", () -> writeCoalescer.add(userId, item,
+				atomicMutations ? cartOperations::addItems : this::loadAddAndSave));
+		invalidateNearCache(userId);
+		hopMetrics.recordCartSize(cart);
+		return cart;
+	}
+	
+	private Cart loadAddAndSave(String userId, List<CartItem> items) {
 		Cart cart = cartRepository.findById(userId)
 				.orElse(Cart.builder().userId(userId).build());
+		items.forEach(cart::addItem);
+		cart.incrementVersion();
+		return cartRepository.save(cart);
+	}
+	
+	@Override
+	public BulkAddItemsResponse addItemsToCart(String userId, List<AddItemRequest> addItemRequests) {
 
-		CartItem existingItem = cart.getItems().get(productId);
+		// Uma unica busca em lote para todos os produtos validos
+		List<String> productIds = addItemRequests.stream()
+				.filter(RestCartService::isValid)
+				.map(AddItemRequest::getProductId)
+				.distinct()
+				.toList();
+		Map<String, ProductDTO> products = productIds.isEmpty()
+				? Map.of()
+				: productServiceClient.getProductsByIds(productIds);
 
-		if (existingItem != null) {
-			existingItem.setQuantity(existingItem.getQuantity() + addItemRequest.getQuantity());
-			cart.getItems().put(productId, existingItem);
-		} else {
-			CartItem newItem = CartItem.builder()
+		List<ItemResult> results = new ArrayList<>();
+		List<CartItem> accepted = new ArrayList<>();
+
+		for (AddItemRequest addItemRequest : addItemRequests) {
+			String productId = addItemRequest.getProductId();
+			ItemResult.ItemResultBuilder result = ItemResult.builder()
 					.productId(productId)
-					.quantity(addItemRequest.getQuantity())
-					.productName(productDTO.getName())
-					.price(productDTO.getPrice())
-					.build();
-			cart.getItems().put(productId, newItem);
+					.quantity(addItemRequest.getQuantity());
+
+			if (!isValid(addItemRequest)) {
+				results.add(result.status(ItemResult.Status.INVALID)
+						.message("Product ID and a positive quantity are required.").build());
+				continue;
+			}
+
+			ProductDTO productDTO = products.get(productId);
+			if (productDTO == null) {
+				results.add(result.status(ItemResult.Status.NOT_FOUND)
+						.message("Product ID:" + productId + " not found.").build());
+				continue;
+			}
+
+			accepted.add(toItem(productDTO, productId, addItemRequest.getQuantity()));
+			results.add(result.status(ItemResult.Status.ADDED).build());
 		}
-		return cartRepository.save(cart);
+
+		// Todas as alteracoes vao para o Redis numa unica operacao
+		if (atomicMutations && !accepted.isEmpty()) {
+			Cart cart = cartOperations.addItems(userId, accepted);
+			invalidateNearCache(userId);
+			hopMetrics.recordCartSize(cart);
+			return new BulkAddItemsResponse(cart, results);
+		}
+
+		Cart cart = cartRepository.findById(userId)
+				.orElse(Cart.builder().userId(userId).build());
+		if (!accepted.isEmpty()) {
+			accepted.forEach(cart::addItem);
+			cart.incrementVersion();
+			Cart saved = cartRepository.save(cart);
+			invalidateNearCache(userId);
+			hopMetrics.recordCartSize(saved);
+			return new BulkAddItemsResponse(saved, results);
+		}
+		return new BulkAddItemsResponse(cart, results);
 	}
 	
+	/**
+	 * Com o item ja no carrinho e um unico script no Redis, sem product-service;
+	 * so um item novo exige a busca do produto. Quantidade zero remove o item.
+	 */
 	@Override
-	public Cart getCart(String userId) {
-		return cartRepository.findById(userId)
+	public Cart updateItemQuantity(String userId, String productId, Integer quantity) {
+		if (quantity == null || quantity < 0) {
+			throw new InvalidQuantityException("Quantity must be zero or a positive number.");
+		}
+		if (quantity == 0) {
+			return removeItem(userId, productId);
+		}
+		
+		if (atomicMutations) {
+			Optional<Cart> updated = cartOperations.setItemQuantity(userId, productId, quantity, null);
+			if (updated.isEmpty()) {
+				CartItem newItem = toItem(findProduct(productId), productId, quantity);
+				updated = cartOperations.setItemQuantity(userId, productId, quantity, newItem);
+			}
+			Cart cart = updated.orElseThrow();
+			invalidateNearCache(userId);
+			hopMetrics.recordCartSize(cart);
+			return cart;
+		}
+		
+		Cart cart = cartRepository.findById(userId)
+				.orElse(Cart.builder().userId(userId).build());
+		if (!cart.setItemQuantity(productId, quantity)) {
+			cart.addItem(toItem(findProduct(productId), productId, quantity));
+		}
+		cart.incrementVersion();
+		Cart saved = cartRepository.save(cart);
+		invalidateNearCache(userId);
+		hopMetrics.recordCartSize(saved);
+		return saved;
+	}
+	
+	@Override
+	public Cart removeItem(String userId, String productId) {
+		if (atomicMutations) {
+			Cart cart = cartOperations.removeItem(userId, productId)
+					.orElseThrow(() -> new CartNotFoundException("Cart ID: " + userId + " not found"));
+			invalidateNearCache(userId);
+			hopMetrics.recordCartSize(cart);
+			return cart;
+		}
+		
+		Cart cart = cartRepository.findById(userId)
 				.orElseThrow(() -> new CartNotFoundException("Cart ID: " + userId + " not found"));
+		// Produto que nao estava no carrinho: nada a gravar
+		if (cart.removeItem(productId)) {
+			cart.incrementVersion();
+			cart = cartRepository.save(cart);
+			invalidateNearCache(userId);
+		}
+		hopMetrics.recordCartSize(cart);
+		return cart;
+	}
+	
+	/**
+	 * Junta o carrinho de convidado {@code sourceCartId} ao do usuario e apaga
+	 * o de convidado, num unico script no Redis, em vez de repetir cada item
+	 * pelo add-to-cart. Quem chama ja provou a posse do carrinho de convidado
+	 * (o controller exige o token da sessao de convidado). Com {@code cart.merge.revalidate}, os produtos sao
+	 * revalidados numa unica busca em lote e os inexistentes ficam de fora.
+	 */
+	@Override
+	public Cart mergeCart(String userId, String sourceCartId) {
+		if (sourceCartId == null || sourceCartId.equals(userId) || !sourceCartId.startsWith(guestCartPrefix)) {
+			throw new InvalidCartMergeException("Only a guest cart can be merged into the user's cart.");
+		}
+		CartMergePolicy policy = CartMergePolicy.from(mergePolicy);
+		
+		if (atomicMutations) {
+			Collection<CartItem> validItems = revalidateOnMerge
+					? cartRepository.findById(sourceCartId).map(this::revalidate).orElse(List.of())
+					: null;
+			Cart cart = cartOperations.mergeCarts(userId, sourceCartId, policy, validItems)
+					.orElseThrow(() -> new CartNotFoundException("Cart ID: " + sourceCartId + " not found"));
+			invalidateNearCache(userId);
+			invalidateNearCache(sourceCartId);
+			hopMetrics.recordCartSize(cart);
+			return cart;
+		}
+		
+		Cart source = cartRepository.findById(sourceCartId)
+				.orElseThrow(() -> new CartNotFoundException("Cart ID: " + sourceCartId + " not found"));
+		Cart cart = cartRepository.findById(userId)
+				.orElse(Cart.builder().userId(userId).build());
+		Collection<CartItem> items = revalidateOnMerge ? revalidate(source) : source.getItems().values();
+		for (CartItem item : items) {
+			if (item.getQuantity() <= 0) {
+				continue;
+			}
+			CartItem existing = cart.getItems().get(item.getProductId());
+			if (existing == null) {
+				cart.addItem(item);
+			} else {
+				// Revalidado, o item do convidado traz o preco atual do catalogo
+				CartItem kept = revalidateOnMerge ? item : existing;
+				cart.removeItem(item.getProductId());
+				cart.addItem(kept.withQuantity(policy.merge(existing.getQuantity(), item.getQuantity())));
+			}
+		}
+		cart.incrementVersion();
+		Cart saved = cartRepository.save(cart);
+		cartRepository.deleteById(sourceCartId);
+		invalidateNearCache(userId);
+		invalidateNearCache(sourceCartId);
+		hopMetrics.recordCartSize(saved);
+		return saved;
+	}
+	
+	/**
+	 * Itens do carrinho com preco e nome atuais do catalogo; produtos que nao
+	 * existem mais (ou sem preco) ficam de fora.
+	 */
+	private List<CartItem> revalidate(Cart cart) {
+		Map<String, ProductDTO> products = cart.getItems().isEmpty()
+				? Map.of()
+				: productServiceClient.getProductsByIds(cart.getItems().keySet());
+		List<CartItem> valid = new ArrayList<>();
+		for (CartItem item : cart.getItems().values()) {
+			ProductDTO product = products.get(item.getProductId());
+			if (product != null && product.getPrice() != null) {
+				valid.add(item.toBuilder()
+						.priceCents(Money.toCents(product.getPrice()))
+						.productName(product.getName() != null ? product.getName() : item.getProductName())
+						.build());
+			}
+		}
+		return valid;
+	}
+	
+	@Override
+	public Cart getCart(String userId) {
+		// O near cache devolve a mesma instancia para varias requisicoes: so leitura
+		Optional<Cart> cart = nearCache != null
+				? getThroughNearCache(userId)
+				: cartRepository.findById(userId);
+		cart.ifPresent(hopMetrics::recordCartSize);
+		return cart.orElseThrow(() -> new CartNotFoundException("Cart ID: " + userId + " not found"));
+	}
+	
+	private Optional<Cart> getThroughNearCache(String userId) {
+		Timer.Sample sample = hopMetrics.start();
+		AtomicBoolean loaded = new AtomicBoolean();
+		Optional<Cart> cart = nearCache.get(userId, id -> {
+			loaded.set(true);
+			return cartRepository.findById(id);
+		});
+		hopMetrics.stop(sample, HopMetrics.NEAR_CACHE, "get", loaded.get() ? "miss" : "hit");
+		return cart;
+	}
+	
+	@Override
+	public Optional<Long> getCartVersion(String userId) {
+		if (nearCache != null) {
+			Optional<Cart> cached = nearCache.getIfPresent(userId);
+			if (cached.isPresent() && cached.get().getVersion() != null) {
+				return Optional.of(cached.get().getVersion());
+			}
+		}
+		return cartOperations.getVersion(userId);
 	}
 	
 	@Override
 	public void deleteCart(String userId) {
 		cartRepository.deleteById(userId);
+		invalidateNearCache(userId);
+	}
+	
+	private void invalidateNearCache(String userId) {
+		if (nearCache != null) {
+			nearCache.invalidate(userId);
+		}
+	}
+	
+	private ProductDTO findProduct(String productId) {
+		return timed("product", () -> productServiceClient.getProductById(productId))
+				.orElseThrow(() -> new ProductNotFoundException("Product ID:" + productId + " not found."));
+	}
+	
+	private static Optional<Cart> awaitCart(FutureTask<Optional<Cart>> cartLoad) {
+		try {
+			return cartLoad.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new IllegalStateException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while loading cart", e);
+		}
+	}
+	
+	/**
+	 * Tempo de cada fase do add-to-cart. "cart-wait" e quanto a requisicao
+	 * ainda esperou pela leitura do carrinho depois que o produto chegou.
+	 */
+	private <T> T timed(String phase, Supplier<T> supplier) {
+		return Timer.builder("cart.add.phase")
+				.description("Time spent in each phase of adding an item to the cart")
+				.tag("phase", phase)
+				.register(meterRegistry)
+				.record(supplier);
+	}
+	
+	private static CartItem toItem(ProductDTO productDTO, String productId, Integer quantity) {
+		return CartItem.builder()
+				.productId(productId)
+				.quantity(quantity)
+				.productName(productDTO.getName())
+				.priceCents(productDTO.getPrice() != null ? Money.toCents(productDTO.getPrice()) : null)
+				.build();
+	}
+	
+	private static boolean isValid(AddItemRequest addItemRequest) {
+		return addItemRequest.getProductId() != null
+				&& addItemRequest.getQuantity() != null
+				&& addItemRequest.getQuantity() > 0;
 	}
 	
 }
@@ -1,13 +1,25 @@
 package com.rgdasil.cart_service.service;
 
 import com.rgdasil.cart_service.dto.ProductDTO;
+import com.rgdasil.cart_service.exception.ConcurrencyLimitExceededException;
 import com.rgdasil.cart_service.exception.ServiceUnavailableException;
+import com.rgdasil.cart_service.metrics.HopMetrics;
+import com.rgdasil.cart_service.resilience.AdaptiveConcurrencyLimiter;
+import com.rgdasil.cart_service.resilience.DependencyGuard;
 
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -18,68 +30,238 @@ import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class RestProductServiceClient implements ProductServiceClient {
 
+    private static final ParameterizedTypeReference<List<ProductDTO>> PRODUCT_LIST =
+            new ParameterizedTypeReference<>() {};
+
     private final RestTemplate restTemplate;
     private final String productServiceUrl;
     private final String internalApiKey;
+    private final String batchPath;
+    private final int batchSize;
+    private final Executor batchExecutor;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final TimeLimiter batchTimeLimiter;
+    private final DependencyGuard productServiceGuard;
+    private final HopMetrics hopMetrics;
     private static final Logger log = LoggerFactory.getLogger(RestProductServiceClient.class);
 
-
     @Autowired
-    public RestProductServiceClient(RestTemplate restTemplate,
+    public RestProductServiceClient(@Qualifier("productRestTemplate") RestTemplate restTemplate,
                                     @Value("${service.product.url}") String productServiceUrl,
-                                    @Value("${service.internal.api-key}") String internalApiKey) {
+                                    @Value("${service.internal.api-key}") String internalApiKey,
+                                    @Value("${service.product.batch-path:/batch}") String batchPath,
+                                    @Value("${service.product.batch-size:50}") int batchSize,
+                                    @Qualifier("productBatchExecutor") Executor batchExecutor,
+                                    @Qualifier("productConcurrencyLimiter") AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                    TimeLimiterRegistry timeLimiterRegistry,
+                                    @Qualifier("productServiceGuard") DependencyGuard productServiceGuard,
+                                    HopMetrics hopMetrics) {
         this.restTemplate = restTemplate;
         this.productServiceUrl = productServiceUrl;
         this.internalApiKey = internalApiKey;
+        this.batchPath = batchPath;
+        this.batchSize = batchSize;
+        this.batchExecutor = batchExecutor;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.batchTimeLimiter = timeLimiterRegistry.timeLimiter("productService");
+        this.productServiceGuard = productServiceGuard;
+        this.hopMetrics = hopMetrics;
     }
 
     @Override
     @CircuitBreaker(name = "productService", fallbackMethod = "getProductByIdFallback")
+    @Bulkhead(name = "productService")
     public Optional<ProductDTO> getProductById(String productId) {
         String url = UriComponentsBuilder.fromHttpUrl(productServiceUrl)
                                          .path("/{id}")
                                          .buildAndExpand(productId)
                                          .toUriString();
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-Internal-Api-Key", internalApiKey);
-        HttpEntity<Void> entity = new HttpEntity<>(headers);
+        HttpEntity<Void> entity = authenticatedEntity();
 
         log.info("Calling Product Service: GET {}", url);
 
+        Timer.Sample sample = hopMetrics.start();
         try {
-            ResponseEntity<ProductDTO> response = restTemplate.exchange(
+            ResponseEntity<ProductDTO> response = concurrencyLimiter.execute(() -> restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     entity,
                     ProductDTO.class
-            );
+            ));
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 log.info("Product found: {}", response.getBody().getId());
+                hopMetrics.stop(sample, HopMetrics.PRODUCT, "getProductById", "found");
                 return Optional.of(response.getBody());
             } else {
                  log.warn("Received non-OK status or empty body from Product Service: {}", response.getStatusCode());
+                hopMetrics.stop(sample, HopMetrics.PRODUCT, "getProductById", "empty");
                 return Optional.empty();
             }
 
         } catch (HttpClientErrorException.NotFound notFoundEx) {
             log.warn("Product not found (404) for ID: {}", productId);
+            hopMetrics.stop(sample, HopMetrics.PRODUCT, "getProductById", "404");
             return Optional.empty();
+        } catch (ConcurrencyLimitExceededException limitEx) {
+            log.warn("Product Service concurrency limit reached for ID {}", productId);
+            hopMetrics.stop(sample, HopMetrics.PRODUCT, "getProductById", "rejected");
+            throw limitEx;
         } catch (Exception e) {
             log.error("Error calling Product Service for ID {}: {}", productId, e.getMessage());
+            hopMetrics.stop(sample, HopMetrics.PRODUCT, "getProductById", "error");
             throw e;
         }
     }
 
+    /**
+     * Busca em lotes de {@code batchSize} IDs, com os lotes em paralelo. IDs que
+     * nao voltam no lote sao consultados individualmente antes de serem dados
+     * como inexistentes.
+     */
+    @Override
+    @CircuitBreaker(name = "productService", fallbackMethod = "getProductsByIdsFallback")
+    @Bulkhead(name = "productService")
+    public Map<String, ProductDTO> getProductsByIds(Collection<String> productIds) {
+        List<String> distinctIds = new ArrayList<>(new LinkedHashSet<>(productIds));
+        Map<String, ProductDTO> products = new ConcurrentHashMap<>();
+
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinctIds.size(); from += batchSize) {
+            List<String> chunk = distinctIds.subList(from, Math.min(from + batchSize, distinctIds.size()));
+            chunks.add(CompletableFuture.runAsync(() -> fetchChunk(chunk, products), batchExecutor));
+        }
+        join(chunks);
+
+        // Chamada interna nao passa pelo proxy; o circuit breaker desta busca ja cobre os lookups,
+        // e o guard limita quantos rodam ao mesmo tempo com um bulkhead separado
+        List<CompletableFuture<Void>> fallbacks = new ArrayList<>();
+        for (String productId : distinctIds) {
+            if (!products.containsKey(productId)) {
+                fallbacks.add(CompletableFuture.runAsync(
+                        () -> productServiceGuard.call(() -> getProductById(productId))
+                                .ifPresent(product -> products.put(productId, product)),
+                        batchExecutor));
+            }
+        }
+        if (!fallbacks.isEmpty()) {
+            log.info("Falling back to single lookups for {} product IDs missing from batch", fallbacks.size());
+            join(fallbacks);
+        }
+
+        Map<String, ProductDTO> ordered = new LinkedHashMap<>();
+        for (String productId : distinctIds) {
+            ProductDTO product = products.get(productId);
+            if (product != null) {
+                ordered.put(productId, product);
+            }
+        }
+        return ordered;
+    }
+
+    private void fetchChunk(List<String> chunk, Map<String, ProductDTO> products) {
+        String url = UriComponentsBuilder.fromHttpUrl(productServiceUrl)
+                                         .path(batchPath)
+                                         .queryParam("ids", String.join(",", chunk))
+                                         .toUriString();
+
+        log.info("Calling Product Service: GET {} ({} IDs)", url, chunk.size());
+
+        Timer.Sample sample = hopMetrics.start();
+        String outcome = "error";
+        try {
+            ResponseEntity<List<ProductDTO>> response = concurrencyLimiter.execute(() -> restTemplate.exchange(
+                    url,
+                    HttpMethod.GET,
+                    authenticatedEntity(),
+                    PRODUCT_LIST
+            ));
+
+            if (response.getBody() != null) {
+                for (ProductDTO product : response.getBody()) {
+                    if (product != null && product.getId() != null) {
+                        products.put(product.getId(), product);
+                    }
+                }
+            }
+            outcome = "found";
+        } catch (HttpClientErrorException.NotFound notFoundEx) {
+            // Sem endpoint de lote (ou nenhum ID encontrado): resolve pelos lookups individuais
+            log.warn("Batch lookup returned 404 for {} IDs", chunk.size());
+            outcome = "404";
+        } finally {
+            hopMetrics.stop(sample, HopMetrics.PRODUCT_BATCH, "getProductsByIds", outcome);
+        }
+    }
+
+    /**
+     * Espera os lotes dentro do prazo do time limiter {@code productService}.
+     * Estourado o prazo, os lotes pendentes sao abandonados e a busca falha,
+     * contando para o circuit breaker.
+     */
+    private void join(List<CompletableFuture<Void>> futures) {
+        CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+        try {
+            batchTimeLimiter.executeFutureSupplier(() -> all);
+        } catch (TimeoutException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new ServiceUnavailableException("Product batch lookup timed out after "
+                    + batchTimeLimiter.getTimeLimiterConfig().getTimeoutDuration().toMillis() + "ms");
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpEntity<Void> authenticatedEntity() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Internal-Api-Key", internalApiKey);
+        return new HttpEntity<>(headers);
+    }
+
+    // Circuito aberto ou bulkhead cheio: a chamada nem sai. As demais falhas ja foram medidas
+    private void recordRejection(String hop, String operation, Throwable t) {
+        if (t instanceof CallNotPermittedException) {
+            hopMetrics.timer(hop, operation, "short-circuited").record(Duration.ZERO);
+        } else if (t instanceof BulkheadFullException) {
+            hopMetrics.timer(hop, operation, "bulkhead-full").record(Duration.ZERO);
+        }
+    }
+
     // Método Fallback
     public Optional<ProductDTO> getProductByIdFallback(String productId, Throwable t) {
         log.error("Circuit breaker fallback for getProductById triggered for ID {}: {}", productId, t.getMessage());
+        recordRejection(HopMetrics.PRODUCT, "getProductById", t);
+        throw new ServiceUnavailableException("Product service is currently unavailable. Please try again later.");
+    }
+
+    public Map<String, ProductDTO> getProductsByIdsFallback(Collection<String> productIds, Throwable t) {
+        log.error("Circuit breaker fallback for getProductsByIds triggered for {} IDs: {}", productIds.size(), t.getMessage());
+        recordRejection(HopMetrics.PRODUCT_BATCH, "getProductsByIds", t);
         throw new ServiceUnavailableException("Product service is currently unavailable. Please try again later.");
     }
 }
\ No newline at end of file
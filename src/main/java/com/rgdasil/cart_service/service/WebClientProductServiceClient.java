@@ -0,0 +1,112 @@
+package com.rgdasil.cart_service.service;
+
+import com.rgdasil.cart_service.dto.ProductDTO;
+import com.rgdasil.cart_service.exception.ServiceUnavailableException;
+
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@Profile("reactive")
+public class WebClientProductServiceClient implements ReactiveProductServiceClient {
+
+    private final WebClient webClient;
+    private final String internalApiKey;
+    private final String batchPath;
+    private final int batchSize;
+    private static final Logger log = LoggerFactory.getLogger(WebClientProductServiceClient.class);
+
+    public WebClientProductServiceClient(@Qualifier("productWebClient") WebClient webClient,
+                                         @Value("${service.internal.api-key}") String internalApiKey,
+                                         @Value("${service.product.batch-path:/batch}") String batchPath,
+                                         @Value("${service.product.batch-size:50}") int batchSize) {
+        this.webClient = webClient;
+        this.internalApiKey = internalApiKey;
+        this.batchPath = batchPath;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    @CircuitBreaker(name = "productService", fallbackMethod = "getProductByIdFallback")
+    public Mono<ProductDTO> getProductById(String productId) {
+        return webClient.get()
+                .uri("/{id}", productId)
+                .header("X-Internal-Api-Key", internalApiKey)
+                .retrieve()
+                .bodyToMono(ProductDTO.class)
+                .onErrorResume(WebClientResponseException.NotFound.class, notFoundEx -> {
+                    log.warn("Product not found (404) for ID: {}", productId);
+                    return Mono.empty();
+                });
+    }
+
+    @Override
+    @CircuitBreaker(name = "productService", fallbackMethod = "getProductsByIdsFallback")
+    public Mono<Map<String, ProductDTO>> getProductsByIds(Collection<String> productIds) {
+        List<String> distinctIds = new ArrayList<>(new LinkedHashSet<>(productIds));
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinctIds.size(); from += batchSize) {
+            chunks.add(distinctIds.subList(from, Math.min(from + batchSize, distinctIds.size())));
+        }
+
+        return Flux.fromIterable(chunks)
+                .flatMap(this::fetchChunk)
+                .collectMap(ProductDTO::getId)
+                .flatMap(found -> {
+                    // IDs que nao voltaram no lote sao consultados individualmente
+                    List<String> missing = distinctIds.stream().filter(id -> !found.containsKey(id)).toList();
+                    return Flux.fromIterable(missing)
+                            .flatMap(this::getProductById)
+                            .doOnNext(product -> found.put(product.getId(), product))
+                            .then(Mono.fromSupplier(() -> ordered(distinctIds, found)));
+                });
+    }
+
+    private Flux<ProductDTO> fetchChunk(List<String> chunk) {
+        return webClient.get()
+                .uri(uriBuilder -> uriBuilder.path(batchPath).queryParam("ids", String.join(",", chunk)).build())
+                .header("X-Internal-Api-Key", internalApiKey)
+                .retrieve()
+                .bodyToFlux(ProductDTO.class)
+                .filter(product -> product.getId() != null)
+                .onErrorResume(WebClientResponseException.NotFound.class, notFoundEx -> Flux.empty());
+    }
+
+    private static Map<String, ProductDTO> ordered(List<String> productIds, Map<String, ProductDTO> found) {
+        Map<String, ProductDTO> products = new LinkedHashMap<>();
+        for (String productId : productIds) {
+            ProductDTO product = found.get(productId);
+            if (product != null) {
+                products.put(productId, product);
+            }
+        }
+        return products;
+    }
+
+    // Métodos Fallback
+    public Mono<ProductDTO> getProductByIdFallback(String productId, Throwable t) {
+        log.error("Circuit breaker fallback for getProductById triggered for ID {}: {}", productId, t.getMessage());
+        return Mono.error(new ServiceUnavailableException("Product service is currently unavailable. Please try again later."));
+    }
+
+    public Mono<Map<String, ProductDTO>> getProductsByIdsFallback(Collection<String> productIds, Throwable t) {
+        log.error("Circuit breaker fallback for getProductsByIds triggered for {} IDs: {}", productIds.size(), t.getMessage());
+        return Mono.error(new ServiceUnavailableException("Product service is currently unavailable. Please try again later."));
+    }
+}
@@ -0,0 +1,32 @@
+-- Soma itens a um carrinho no layout compacto, numa unica operacao atomica.
+-- KEYS[1]: chave do carrinho (cart:<userId>)
+-- ARGV[1]: TTL em segundos
+-- ARGV[2..]: grupos de (productId, productName, priceCents, quantity)
+-- Cada campo do hash e um produto, com valor "quantidade|centavos|nome".
+-- O campo @version avanca a cada chamada; um carrinho novo comeca no instante
+-- atual em ms, para nunca repetir a versao de um carrinho apagado.
+-- Retorna o HGETALL do carrinho.
+
+local key = KEYS[1]
+
+if redis.call('EXISTS', key) == 0 then
+  local now = redis.call('TIME')
+  redis.call('HSET', key, '@version', string.format('%.0f', now[1] * 1000 + math.floor(now[2] / 1000)))
+else
+  redis.call('HINCRBY', key, '@version', 1)
+end
+
+for i = 2, #ARGV, 4 do
+  local productId = ARGV[i]
+  local current = redis.call('HGET', key, productId)
+  if current then
+    local sep = string.find(current, '|', 1, true)
+    local quantity = tonumber(string.sub(current, 1, sep - 1)) + tonumber(ARGV[i + 3])
+    redis.call('HSET', key, productId, quantity .. string.sub(current, sep))
+  else
+    redis.call('HSET', key, productId, ARGV[i + 3] .. '|' .. ARGV[i + 2] .. '|' .. ARGV[i + 1])
+  end
+end
+
+redis.call('EXPIRE', key, ARGV[1])
+return redis.call('HGETALL', key)
@@ -0,0 +1,73 @@
+-- Junta um carrinho de origem (convidado) ao carrinho de destino no layout compacto
+-- e apaga a origem, numa unica operacao atomica.
+-- KEYS[1]: carrinho de destino (cart:<userId>) | KEYS[2]: carrinho de origem
+-- ARGV[1]: TTL em segundos | ARGV[2]: politica para produtos nos dois carrinhos (sum, max, source, target)
+-- ARGV[3]: '1' para revalidar: so entram os produtos de ARGV[4..], com o preco e o nome informados
+-- ARGV[4..]: grupos de (productId, priceCents, productName)
+-- O campo @version do destino avanca quando algum item entra.
+-- Retorna: { 0, campo1, valor1, ... }; { -1 } quando a origem nao existe;
+-- { 0 } quando nada entrou e o destino nao existe.
+
+local target = KEYS[1]
+local entries = redis.call('HGETALL', KEYS[2])
+if #entries == 0 then
+  return { -1 }
+end
+
+local valid = nil
+if ARGV[3] == '1' then
+  valid = {}
+  for i = 4, #ARGV, 3 do
+    valid[ARGV[i]] = '|' .. ARGV[i + 1] .. '|' .. ARGV[i + 2]
+  end
+end
+
+local policy = ARGV[2]
+local touched = false
+
+for i = 1, #entries, 2 do
+  local productId = entries[i]
+  local value = entries[i + 1]
+  local sep = string.find(value, '|', 1, true)
+  if string.sub(productId, 1, 1) ~= '@' and sep then
+    local quantity = tonumber(string.sub(value, 1, sep - 1)) or 0
+    local fresh = valid and valid[productId]
+    if quantity > 0 and (valid == nil or fresh) then
+      local current = redis.call('HGET', target, productId)
+      if current then
+        local currentSep = string.find(current, '|', 1, true)
+        local currentQuantity = tonumber(string.sub(current, 1, currentSep - 1))
+        local merged = currentQuantity + quantity
+        if policy == 'max' then
+          merged = math.max(currentQuantity, quantity)
+        elseif policy == 'source' then
+          merged = quantity
+        elseif policy == 'target' then
+          merged = currentQuantity
+        end
+        redis.call('HSET', target, productId, merged .. (fresh or string.sub(current, currentSep)))
+      else
+        redis.call('HSET', target, productId, quantity .. (fresh or string.sub(value, sep)))
+      end
+      touched = true
+    end
+  end
+end
+
+redis.call('DEL', KEYS[2])
+if touched then
+  if redis.call('HEXISTS', target, '@version') == 0 then
+    local now = redis.call('TIME')
+    redis.call('HSET', target, '@version', string.format('%.0f', now[1] * 1000 + math.floor(now[2] / 1000)))
+  else
+    redis.call('HINCRBY', target, '@version', 1)
+  end
+  redis.call('EXPIRE', target, ARGV[1])
+end
+
+local result = redis.call('HGETALL', target)
+if #result == 0 then
+  return { 0 }
+end
+table.insert(result, 1, 0)
+return result
@@ -0,0 +1,19 @@
+-- Grava no layout compacto um carrinho lido do layout antigo, se a chave ainda nao existir.
+-- KEYS[1]: chave do carrinho (cart:<userId>)
+-- ARGV[1]: TTL em segundos
+-- ARGV[2..]: pares (campo, valor)
+-- Uma mutacao concorrente pode ter migrado e alterado o carrinho entre a leitura do
+-- layout antigo e esta chamada; nesse caso nada e gravado, para nao desfazer a alteracao.
+-- Retorna 1 quando o carrinho foi gravado e 0 quando a chave ja existia.
+
+local key = KEYS[1]
+if redis.call('EXISTS', key) == 1 then
+  return 0
+end
+for i = 2, #ARGV, 2 do
+  redis.call('HSET', key, ARGV[i], ARGV[i + 1])
+end
+if #ARGV > 1 then
+  redis.call('EXPIRE', key, ARGV[1])
+end
+return 1
@@ -0,0 +1,29 @@
+-- Grava precos e nomes atualizados do catalogo nos itens de um carrinho no layout compacto.
+-- KEYS[1]: chave do carrinho (cart:<userId>)
+-- ARGV: grupos de (productId, priceCents, productName)
+-- A quantidade atual de cada item e mantida, assim como o nome quando o catalogo nao
+-- informa um (productName vazio). Itens removidos desde a leitura sao ignorados, e o
+-- TTL nao e renovado. O campo @version avanca quando algum item muda.
+-- Retorna o numero de itens atualizados.
+
+local key = KEYS[1]
+local changed = 0
+
+for i = 1, #ARGV, 3 do
+  local current = redis.call('HGET', key, ARGV[i])
+  if current then
+    local sep = string.find(current, '|', 1, true)
+    local name = ARGV[i + 2]
+    if name == '' then
+      local nameSep = string.find(current, '|', sep + 1, true)
+      name = nameSep and string.sub(current, nameSep + 1) or ''
+    end
+    redis.call('HSET', key, ARGV[i], string.sub(current, 1, sep - 1) .. '|' .. ARGV[i + 1] .. '|' .. name)
+    changed = changed + 1
+  end
+end
+
+if changed > 0 then
+  redis.call('HINCRBY', key, '@version', 1)
+end
+return changed
@@ -0,0 +1,14 @@
+-- Substitui o carrinho inteiro no layout compacto.
+-- KEYS[1]: chave do carrinho (cart:<userId>)
+-- ARGV[1]: TTL em segundos
+-- ARGV[2..]: pares (campo, valor)
+
+local key = KEYS[1]
+redis.call('DEL', key)
+for i = 2, #ARGV, 2 do
+  redis.call('HSET', key, ARGV[i], ARGV[i + 1])
+end
+if #ARGV > 1 then
+  redis.call('EXPIRE', key, ARGV[1])
+end
+return 1
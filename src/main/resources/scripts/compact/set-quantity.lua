@@ -0,0 +1,42 @@
+-- Define a quantidade de um item no layout compacto, numa unica operacao atomica.
+-- Quantidade 0 remove o item.
+-- KEYS[1]: chave do carrinho (cart:<userId>)
+-- ARGV[1]: TTL em segundos | ARGV[2]: productId | ARGV[3]: quantidade
+-- ARGV[4]: productName | ARGV[5]: priceCents
+-- ARGV[4] e ARGV[5] so sao usados quando o item ainda nao esta no carrinho; com
+-- ARGV[5] vazio nada e gravado e o retorno e { -1 }: o chamador busca o produto e repete.
+-- O campo @version avanca sempre que o carrinho muda.
+-- Retorna: { 0, campo1, valor1, ... }, ou { 0 } quando o carrinho nao existe.
+
+local key = KEYS[1]
+local productId = ARGV[2]
+local quantity = tonumber(ARGV[3])
+local current = redis.call('HGET', key, productId)
+
+if quantity <= 0 then
+  if current then
+    redis.call('HDEL', key, productId)
+    redis.call('HINCRBY', key, '@version', 1)
+    redis.call('EXPIRE', key, ARGV[1])
+  end
+else
+  if current then
+    local sep = string.find(current, '|', 1, true)
+    redis.call('HSET', key, productId, ARGV[3] .. string.sub(current, sep))
+  elseif ARGV[5] == '' then
+    return { -1 }
+  else
+    redis.call('HSET', key, productId, ARGV[3] .. '|' .. ARGV[5] .. '|' .. ARGV[4])
+  end
+  if redis.call('HEXISTS', key, '@version') == 0 then
+    local now = redis.call('TIME')
+    redis.call('HSET', key, '@version', string.format('%.0f', now[1] * 1000 + math.floor(now[2] / 1000)))
+  else
+    redis.call('HINCRBY', key, '@version', 1)
+  end
+  redis.call('EXPIRE', key, ARGV[1])
+end
+
+local result = redis.call('HGETALL', key)
+table.insert(result, 1, 0)
+return result
@@ -0,0 +1,35 @@
+-- Soma itens a um carrinho no layout do @RedisHash("carts"), numa unica operacao atomica.
+-- KEYS[1]: chave do carrinho (carts:<userId>)
+-- ARGV[1]: userId | ARGV[2]: _class | ARGV[3]: expiration (dias) | ARGV[4]: TTL em segundos
+-- ARGV[5..]: grupos de (productId, productName, priceCents, quantity)
+-- A versao do carrinho avanca a cada chamada; um carrinho novo comeca no
+-- instante atual em ms, para nunca repetir a versao de um carrinho apagado.
+-- Retorna: { criado (0/1), campo1, valor1, campo2, valor2, ... }
+
+local key = KEYS[1]
+local created = redis.call('HSETNX', key, '_class', ARGV[2])
+if created == 1 then
+  local now = redis.call('TIME')
+  local version = string.format('%.0f', now[1] * 1000 + math.floor(now[2] / 1000))
+  redis.call('HSET', key, 'userId', ARGV[1], 'expiration', ARGV[3], 'version', version)
+else
+  redis.call('HINCRBY', key, 'version', 1)
+end
+
+for i = 5, #ARGV, 4 do
+  local prefix = 'items.[' .. ARGV[i] .. '].'
+  if redis.call('HEXISTS', key, prefix .. 'productId') == 0 then
+    redis.call('HSET', key, prefix .. 'productId', ARGV[i])
+    if ARGV[i + 1] ~= '' then
+      redis.call('HSET', key, prefix .. 'productName', ARGV[i + 1])
+    end
+    redis.call('HSET', key, prefix .. 'priceCents', ARGV[i + 2])
+  end
+  redis.call('HINCRBY', key, prefix .. 'quantity', ARGV[i + 3])
+end
+
+redis.call('EXPIRE', key, ARGV[4])
+
+local result = redis.call('HGETALL', key)
+table.insert(result, 1, created)
+return result
@@ -0,0 +1,104 @@
+-- Junta um carrinho de origem (convidado) ao carrinho de destino no layout do @RedisHash("carts")
+-- e apaga a origem, numa unica operacao atomica.
+-- KEYS[1]: carrinho de destino (carts:<userId>) | KEYS[2]: carrinho de origem
+-- ARGV[1]: userId | ARGV[2]: _class | ARGV[3]: expiration (dias) | ARGV[4]: TTL em segundos
+-- ARGV[5]: politica para produtos nos dois carrinhos (sum, max, source, target)
+-- ARGV[6]: '1' para revalidar: so entram os produtos de ARGV[7..], com o preco e o nome informados
+-- ARGV[7..]: grupos de (productId, priceCents, productName)
+-- A versao do destino avanca quando algum item entra.
+-- Retorna: { criado (0/1), campo1, valor1, ... }; { -1 } quando a origem nao existe;
+-- { 0 } quando nada entrou e o destino nao existe.
+
+local target = KEYS[1]
+local entries = redis.call('HGETALL', KEYS[2])
+if #entries == 0 then
+  return { -1 }
+end
+
+local items = {}
+local order = {}
+for i = 1, #entries, 2 do
+  local productId, field = string.match(entries[i], '^items%.%[(.*)%]%.([^%.]+)$')
+  if productId then
+    if not items[productId] then
+      items[productId] = {}
+      table.insert(order, productId)
+    end
+    items[productId][field] = entries[i + 1]
+  end
+end
+
+local valid = nil
+if ARGV[6] == '1' then
+  valid = {}
+  for i = 7, #ARGV, 3 do
+    valid[ARGV[i]] = { ARGV[i + 1], ARGV[i + 2] }
+  end
+end
+
+local policy = ARGV[5]
+local created = 0
+local touched = false
+
+for _, productId in ipairs(order) do
+  local item = items[productId]
+  local quantity = tonumber(item.quantity) or 0
+  local fresh = valid and valid[productId]
+  if quantity > 0 and (valid == nil or fresh) then
+    if not touched then
+      created = redis.call('HSETNX', target, '_class', ARGV[2])
+      if created == 1 then
+        local now = redis.call('TIME')
+        local version = string.format('%.0f', now[1] * 1000 + math.floor(now[2] / 1000))
+        redis.call('HSET', target, 'userId', ARGV[1], 'expiration', ARGV[3], 'version', version)
+      else
+        redis.call('HINCRBY', target, 'version', 1)
+      end
+      touched = true
+    end
+
+    local prefix = 'items.[' .. productId .. '].'
+    local current = tonumber(redis.call('HGET', target, prefix .. 'quantity'))
+    if current then
+      local merged = current + quantity
+      if policy == 'max' then
+        merged = math.max(current, quantity)
+      elseif policy == 'source' then
+        merged = quantity
+      elseif policy == 'target' then
+        merged = current
+      end
+      redis.call('HSET', target, prefix .. 'quantity', merged)
+    else
+      redis.call('HSET', target, prefix .. 'productId', productId, prefix .. 'quantity', quantity)
+      if item.productName then
+        redis.call('HSET', target, prefix .. 'productName', item.productName)
+      end
+      if item.priceCents then
+        redis.call('HSET', target, prefix .. 'priceCents', item.priceCents)
+      elseif item.price then
+        redis.call('HSET', target, prefix .. 'price', item.price)
+      end
+    end
+
+    if fresh then
+      redis.call('HSET', target, prefix .. 'priceCents', fresh[1])
+      redis.call('HDEL', target, prefix .. 'price')
+      if fresh[2] ~= '' then
+        redis.call('HSET', target, prefix .. 'productName', fresh[2])
+      end
+    end
+  end
+end
+
+redis.call('DEL', KEYS[2])
+if touched then
+  redis.call('EXPIRE', target, ARGV[4])
+end
+
+local result = redis.call('HGETALL', target)
+if #result == 0 then
+  return { 0 }
+end
+table.insert(result, 1, created)
+return result
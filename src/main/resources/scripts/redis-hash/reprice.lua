@@ -0,0 +1,26 @@
+-- Grava precos e nomes atualizados do catalogo nos itens de um carrinho do @RedisHash("carts").
+-- KEYS[1]: chave do carrinho (carts:<userId>)
+-- ARGV: grupos de (productId, priceCents, productName)
+-- Itens removidos desde a leitura sao ignorados, e o TTL nao e renovado.
+-- A versao avanca quando algum item muda.
+-- Retorna o numero de itens atualizados.
+
+local key = KEYS[1]
+local changed = 0
+
+for i = 1, #ARGV, 3 do
+  local prefix = 'items.[' .. ARGV[i] .. '].'
+  if redis.call('HEXISTS', key, prefix .. 'productId') == 1 then
+    redis.call('HSET', key, prefix .. 'priceCents', ARGV[i + 1])
+    redis.call('HDEL', key, prefix .. 'price')
+    if ARGV[i + 2] ~= '' then
+      redis.call('HSET', key, prefix .. 'productName', ARGV[i + 2])
+    end
+    changed = changed + 1
+  end
+end
+
+if changed > 0 then
+  redis.call('HINCRBY', key, 'version', 1)
+end
+return changed
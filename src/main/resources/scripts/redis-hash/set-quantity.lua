@@ -0,0 +1,50 @@
+-- Define a quantidade de um item no layout do @RedisHash("carts"), numa unica operacao atomica.
+-- Quantidade 0 remove o item.
+-- KEYS[1]: chave do carrinho (carts:<userId>)
+-- ARGV[1]: userId | ARGV[2]: _class | ARGV[3]: expiration (dias) | ARGV[4]: TTL em segundos
+-- ARGV[5]: productId | ARGV[6]: quantidade | ARGV[7]: productName | ARGV[8]: priceCents
+-- ARGV[7] e ARGV[8] so sao usados quando o item ainda nao esta no carrinho; com
+-- ARGV[8] vazio nada e gravado e o retorno e { -1 }: o chamador busca o produto e repete.
+-- A versao avanca sempre que o carrinho muda.
+-- Retorna: { criado (0/1), campo1, valor1, ... }, ou { 0 } quando o carrinho nao existe.
+
+local key = KEYS[1]
+local prefix = 'items.[' .. ARGV[5] .. '].'
+local quantity = tonumber(ARGV[6])
+local present = redis.call('HEXISTS', key, prefix .. 'productId') == 1
+local created = 0
+
+if quantity <= 0 then
+  if present then
+    redis.call('HDEL', key, prefix .. 'productId', prefix .. 'productName', prefix .. 'priceCents',
+      prefix .. 'price', prefix .. 'quantity')
+    redis.call('HINCRBY', key, 'version', 1)
+    redis.call('EXPIRE', key, ARGV[4])
+  end
+else
+  if not present then
+    if ARGV[8] == '' then
+      return { -1 }
+    end
+    created = redis.call('HSETNX', key, '_class', ARGV[2])
+    if created == 1 then
+      local now = redis.call('TIME')
+      local version = string.format('%.0f', now[1] * 1000 + math.floor(now[2] / 1000))
+      redis.call('HSET', key, 'userId', ARGV[1], 'expiration', ARGV[3], 'version', version)
+    else
+      redis.call('HINCRBY', key, 'version', 1)
+    end
+    redis.call('HSET', key, prefix .. 'productId', ARGV[5], prefix .. 'priceCents', ARGV[8])
+    if ARGV[7] ~= '' then
+      redis.call('HSET', key, prefix .. 'productName', ARGV[7])
+    end
+  else
+    redis.call('HINCRBY', key, 'version', 1)
+  end
+  redis.call('HSET', key, prefix .. 'quantity', ARGV[6])
+  redis.call('EXPIRE', key, ARGV[4])
+end
+
+local result = redis.call('HGETALL', key)
+table.insert(result, 1, created)
+return result
@@ -0,0 +1,5 @@
+-- Uma pagina do SCAN, para o chamador guardar o cursor e retomar dali depois.
+-- ARGV[1]: cursor ("0" inicia) | ARGV[2]: padrao do MATCH | ARGV[3]: COUNT
+-- Retorna: { proximo cursor, { chave1, chave2, ... } }
+
+return redis.call('SCAN', ARGV[1], 'MATCH', ARGV[2], 'COUNT', ARGV[3])
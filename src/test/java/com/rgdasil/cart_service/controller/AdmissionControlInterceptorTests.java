@@ -0,0 +1,92 @@
+package com.rgdasil.cart_service.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlInterceptorTests {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AdmissionControlInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Duas vagas no total, só uma delas para escritas
+        interceptor = new AdmissionControlInterceptor(true, 2, Duration.ZERO, "reads", 0.5,
+                Duration.ofSeconds(2), "X-Request-Deadline",
+                new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry))
+                        .getBeanProvider(MeterRegistry.class));
+    }
+
+    @Test
+    void whenAllSlotsAreTaken_thenRequestIsShedWithRetryAfter() throws Exception {
+        // --- ARRANGE ---
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("GET", "/cart"), new MockHttpServletResponse(), null));
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("GET", "/cart"), new MockHttpServletResponse(), null));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // --- ACT ---
+        boolean admitted = interceptor.preHandle(new MockHttpServletRequest("GET", "/cart"), response, null);
+
+        // --- ASSERT ---
+        assertFalse(admitted);
+        assertEquals(503, response.getStatus());
+        assertEquals("2", response.getHeader("Retry-After"));
+        assertEquals(1.0, meterRegistry.get("cart.admission.shed")
+                .tags("reason", "capacity", "class", "read").counter().count());
+    }
+
+    @Test
+    void whenWritesUseTheirShare_thenReadsAreStillAdmitted() throws Exception {
+        // --- ARRANGE ---
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("POST", "/cart"), new MockHttpServletResponse(), null));
+
+        // --- ACT ---
+        boolean secondWrite = interceptor.preHandle(new MockHttpServletRequest("POST", "/cart"), new MockHttpServletResponse(), null);
+        boolean read = interceptor.preHandle(new MockHttpServletRequest("GET", "/cart"), new MockHttpServletResponse(), null);
+
+        // --- ASSERT ---
+        assertFalse(secondWrite, "Escritas só podem ocupar metade das vagas com priority=reads.");
+        assertTrue(read, "A vaga reservada deve continuar livre para leituras.");
+    }
+
+    @Test
+    void whenRequestCompletes_thenItsSlotIsReleased() throws Exception {
+        // --- ARRANGE ---
+        MockHttpServletRequest write = new MockHttpServletRequest("POST", "/cart");
+        assertTrue(interceptor.preHandle(write, new MockHttpServletResponse(), null));
+
+        // --- ACT ---
+        interceptor.afterCompletion(write, new MockHttpServletResponse(), null, null);
+
+        // --- ASSERT ---
+        assertEquals(0, interceptor.getInFlight());
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("POST", "/cart"), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void whenClientDeadlineHasPassed_thenRequestIsDropped() throws Exception {
+        // --- ARRANGE ---
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/cart");
+        request.addHeader("X-Request-Deadline", String.valueOf(System.currentTimeMillis() - 1_000));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // --- ACT ---
+        boolean admitted = interceptor.preHandle(request, response, null);
+
+        // --- ASSERT ---
+        assertFalse(admitted);
+        assertEquals(504, response.getStatus());
+        assertEquals(0, interceptor.getInFlight(), "Requisição expirada não deve ocupar vaga.");
+    }
+}
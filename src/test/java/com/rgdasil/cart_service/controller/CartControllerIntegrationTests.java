@@ -4,6 +4,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rgdasil.cart_service.domain.Cart;
 import com.rgdasil.cart_service.domain.CartItem;
 import com.rgdasil.cart_service.dto.AddItemRequest;
+import com.rgdasil.cart_service.dto.BulkAddItemsResponse;
+import com.rgdasil.cart_service.dto.ItemResult;
+import com.rgdasil.cart_service.dto.MergeCartRequest;
+import com.rgdasil.cart_service.dto.UpdateItemQuantityRequest;
 import com.rgdasil.cart_service.security.JwtAuthInterceptor;
 import com.rgdasil.cart_service.service.RestCartService;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,11 +18,16 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -87,6 +96,103 @@ public class CartControllerIntegrationTests {
                 .andExpect(jsonPath("$.items['prod-abc'].productName").value("Produto Teste")); // Verifica um campo dentro do item
     }
 
+    @Test
+    void shouldAddItemsInBulkAndReturnPerItemResults() throws Exception {
+        // --- ARRANGE ---
+        AddItemRequest found = new AddItemRequest();
+        found.setProductId("prod-abc");
+        found.setQuantity(1);
+
+        AddItemRequest missing = new AddItemRequest();
+        missing.setProductId("prod-missing");
+        missing.setQuantity(1);
+
+        BulkAddItemsResponse bulkResponse = new BulkAddItemsResponse(mockCart, List.of(
+                ItemResult.builder().productId("prod-abc").quantity(1).status(ItemResult.Status.ADDED).build(),
+                ItemResult.builder().productId("prod-missing").quantity(1).status(ItemResult.Status.NOT_FOUND).build()));
+
+        when(cartService.addItemsToCart(eq(mockUserId), anyList())).thenReturn(bulkResponse);
+
+        // --- ACT & ASSERT ---
+        mockMvc.perform(post("/cart/items")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(found, missing)))
+                        .requestAttr("userId", mockUserId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cart.userId").value(mockUserId))
+                .andExpect(jsonPath("$.results[0].status").value("ADDED"))
+                .andExpect(jsonPath("$.results[1].status").value("NOT_FOUND"));
+    }
+
+    @Test
+    void shouldSetItemQuantityAndReturnUpdatedTotals() throws Exception {
+        // --- ARRANGE ---
+        UpdateItemQuantityRequest requestBody = new UpdateItemQuantityRequest();
+        requestBody.setQuantity(1);
+
+        when(cartService.updateItemQuantity(mockUserId, "prod-abc", 1)).thenReturn(mockCart);
+
+        // --- ACT & ASSERT ---
+        mockMvc.perform(put("/cart/items/prod-abc")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestBody))
+                        .requestAttr("userId", mockUserId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items['prod-abc'].quantity").value(1))
+                .andExpect(jsonPath("$.totalPrice").value(99.99))
+                .andExpect(jsonPath("$.itemCount").value(1));
+    }
+
+    @Test
+    void shouldRemoveItemAndReturnUpdatedCart() throws Exception {
+        // --- ARRANGE ---
+        Cart emptyCart = Cart.builder().userId(mockUserId).build();
+        when(cartService.removeItem(mockUserId, "prod-abc")).thenReturn(emptyCart);
+
+        // --- ACT & ASSERT ---
+        mockMvc.perform(delete("/cart/items/prod-abc")
+                        .requestAttr("userId", mockUserId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemCount").value(0));
+    }
+
+    @Test
+    void shouldMergeGuestCartIntoUserCart() throws Exception {
+        // --- ARRANGE ---
+        MergeCartRequest requestBody = new MergeCartRequest();
+        requestBody.setSourceCartId("guest-xyz");
+        requestBody.setSourceCartToken("guest-session-token");
+        when(jwtAuthInterceptor.authenticate("guest-session-token")).thenReturn(Optional.of("guest-xyz"));
+        when(cartService.mergeCart(mockUserId, "guest-xyz")).thenReturn(mockCart);
+
+        // --- ACT & ASSERT ---
+        mockMvc.perform(post("/cart/merge")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestBody))
+                        .requestAttr("userId", mockUserId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value(mockUserId))
+                .andExpect(jsonPath("$.itemCount").value(1));
+    }
+
+    @Test
+    void whenGuestTokenDoesNotOwnSourceCart_thenMergeIsForbidden() throws Exception {
+        // --- ARRANGE ---
+        // O token é válido, mas é de outro convidado: saber o id do carrinho não basta
+        MergeCartRequest requestBody = new MergeCartRequest();
+        requestBody.setSourceCartId("guest-victim");
+        requestBody.setSourceCartToken("guest-session-token");
+        when(jwtAuthInterceptor.authenticate("guest-session-token")).thenReturn(Optional.of("guest-xyz"));
+
+        // --- ACT & ASSERT ---
+        mockMvc.perform(post("/cart/merge")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestBody))
+                        .requestAttr("userId", mockUserId))
+                .andExpect(status().isForbidden());
+        verify(cartService, never()).mergeCart(any(), any());
+    }
+
     @Test
     void shouldGetCartSuccessfully() throws Exception {
         // --- ARRANGE ---
@@ -101,6 +207,38 @@ public class CartControllerIntegrationTests {
                 .andExpect(jsonPath("$.itemCount").value(1)); // Verifica o total de itens
     }
 
+    @Test
+    void shouldReturnNotModifiedWithoutLoadingCart_WhenEtagMatches() throws Exception {
+        // --- ARRANGE ---
+        // Só a versão é consultada; o carrinho completo não deve ser carregado.
+        when(cartService.getCartVersion(mockUserId)).thenReturn(Optional.of(42L));
+
+        // --- ACT & ASSERT ---
+        mockMvc.perform(get("/cart")
+                        .requestAttr("userId", mockUserId)
+                        .header("If-None-Match", "\"42\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"42\""));
+
+        verify(cartService, never()).getCart(any());
+    }
+
+    @Test
+    void shouldReturnCartWithEtag_WhenVersionChanged() throws Exception {
+        // --- ARRANGE ---
+        mockCart.setVersion(43L);
+        when(cartService.getCartVersion(mockUserId)).thenReturn(Optional.of(43L));
+        when(cartService.getCart(mockUserId)).thenReturn(mockCart);
+
+        // --- ACT & ASSERT ---
+        mockMvc.perform(get("/cart")
+                        .requestAttr("userId", mockUserId)
+                        .header("If-None-Match", "\"42\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"43\""))
+                .andExpect(jsonPath("$.itemCount").value(1));
+    }
+
     @Test
     void shouldDeleteCartAndReturnNoContent() throws Exception {
         // --- ARRANGE ---
@@ -0,0 +1,170 @@
+package com.rgdasil.cart_service.controller;
+
+import com.rgdasil.cart_service.domain.Cart;
+import com.rgdasil.cart_service.domain.CartItem;
+import com.rgdasil.cart_service.dto.AddItemRequest;
+import com.rgdasil.cart_service.exception.CartNotFoundException;
+import com.rgdasil.cart_service.security.LocalJwtVerifier;
+import com.rgdasil.cart_service.security.TokenValidationCache;
+import com.rgdasil.cart_service.service.ReactiveCartService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(controllers = ReactiveCartController.class, properties = {
+        "service.auth.url=http://auth-service/validate",
+        "service.internal.api-key=test-api-key"
+})
+@ActiveProfiles("reactive")
+@Import(ReactiveCartControllerTests.StubAuthService.class)
+public class ReactiveCartControllerTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private ReactiveCartService cartService;
+
+    @MockBean
+    private TokenValidationCache tokenValidationCache;
+
+    @MockBean
+    private LocalJwtVerifier localJwtVerifier;
+
+    private String mockUserId;
+    private Cart mockCart;
+
+    @TestConfiguration
+    static class StubAuthService {
+
+        // auth-service simulado: qualquer token que chegue até ele é válido para "user-123"
+        @Bean
+        WebClient authWebClient() {
+            return WebClient.builder()
+                    .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body("{\"valid\":true,\"userId\":\"user-123\"}")
+                            .build()))
+                    .build();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        mockUserId = "user-123";
+
+        mockCart = Cart.builder()
+                .userId(mockUserId)
+                .items(Map.of("prod-abc",
+                        CartItem.builder()
+                                .productId("prod-abc")
+                                .productName("Produto Teste")
+                                .quantity(1)
+                                .price(99.99)
+                                .build()))
+                .build();
+    }
+
+    @Test
+    void whenAuthorizationHeaderIsMissing_thenUnauthorized() {
+        // --- ACT & ASSERT ---
+        webTestClient.get().uri("/cart")
+                .exchange()
+                .expectStatus().isUnauthorized()
+                .expectBody(String.class).isEqualTo("Authorization header is missing or invalid");
+
+        // A requisição não chega ao serviço
+        verifyNoInteractions(cartService);
+    }
+
+    @Test
+    void whenTokenIsInRejectedCache_thenUnauthorized() {
+        // --- ARRANGE ---
+        when(tokenValidationCache.isRejected("bad-token")).thenReturn(true);
+
+        // --- ACT & ASSERT ---
+        webTestClient.get().uri("/cart")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer bad-token")
+                .exchange()
+                .expectStatus().isUnauthorized()
+                .expectBody(String.class).isEqualTo("Invalid token");
+
+        verifyNoInteractions(cartService);
+    }
+
+    @Test
+    void whenTokenIsCached_thenItemIsAddedForCachedUser() {
+        // --- ARRANGE ---
+        AddItemRequest requestBody = new AddItemRequest();
+        requestBody.setProductId("prod-abc");
+        requestBody.setQuantity(1);
+
+        when(tokenValidationCache.getUserId("cached-token")).thenReturn(Optional.of(mockUserId));
+        when(cartService.addItemToCart(eq(mockUserId), any(AddItemRequest.class))).thenReturn(Mono.just(mockCart));
+
+        // --- ACT & ASSERT ---
+        webTestClient.post().uri("/cart")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer cached-token")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(requestBody)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.userId").isEqualTo(mockUserId)
+                .jsonPath("$.items['prod-abc'].productName").isEqualTo("Produto Teste");
+    }
+
+    @Test
+    void whenTokenIsUnknown_thenAuthServiceValidatesAndResultIsCached() {
+        // --- ARRANGE ---
+        when(tokenValidationCache.getUserId(anyString())).thenReturn(Optional.empty());
+        when(cartService.getCart(mockUserId)).thenReturn(Mono.just(mockCart));
+
+        // --- ACT & ASSERT ---
+        webTestClient.get().uri("/cart")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer fresh-token")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.userId").isEqualTo(mockUserId);
+
+        verify(tokenValidationCache).putValid("fresh-token", mockUserId);
+    }
+
+    @Test
+    void whenCartDoesNotExist_thenNotFound() {
+        // --- ARRANGE ---
+        when(tokenValidationCache.getUserId("cached-token")).thenReturn(Optional.of(mockUserId));
+        when(cartService.getCart(mockUserId))
+                .thenReturn(Mono.error(new CartNotFoundException("Cart ID: " + mockUserId + " not found")));
+
+        // --- ACT & ASSERT ---
+        webTestClient.get().uri("/cart")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer cached-token")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+}
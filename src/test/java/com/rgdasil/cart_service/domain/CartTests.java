@@ -0,0 +1,67 @@
+package com.rgdasil.cart_service.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartTests {
+
+    @Test
+    void whenItemsAreAdded_thenTotalsAreKeptExactInCents() {
+        // --- ARRANGE ---
+        // Em double, 0.1 + 0.2 daria 0.30000000000000004
+        Cart cart = Cart.builder().userId("user-1").build();
+
+        // --- ACT ---
+        cart.addItem(CartItem.builder().productId("a").quantity(1).price(0.1).build());
+        cart.addItem(CartItem.builder().productId("b").quantity(1).price(0.2).build());
+        cart.addItem(CartItem.builder().productId("a").quantity(2).build());
+
+        // --- ASSERT ---
+        assertEquals(50L, cart.getTotalPriceCents());
+        assertEquals(new BigDecimal("0.50"), cart.getTotalPrice());
+        assertEquals(4, cart.getItemCount());
+        // O item existente mantém o preço e só soma a quantidade
+        assertEquals(3, cart.getItems().get("a").getQuantity());
+        assertEquals(10L, cart.getItems().get("a").getPriceCents());
+    }
+
+    @Test
+    void whenCartIsBuiltWithItems_thenTotalsAreComputedOnce() {
+        // --- ARRANGE & ACT ---
+        Cart cart = Cart.builder()
+                .userId("user-1")
+                .items(Map.of("a", CartItem.builder().productId("a").quantity(3).priceCents(1999L).build()))
+                .build();
+
+        // --- ASSERT ---
+        assertEquals(new BigDecimal("59.97"), cart.getTotalPrice());
+        assertEquals(3, cart.getItemCount());
+        // Os itens só mudam pelos métodos do carrinho
+        assertThrows(UnsupportedOperationException.class, () -> cart.getItems().clear());
+    }
+
+    @Test
+    void whenItemQuantityIsSetOrItemRemoved_thenTotalsFollow() {
+        // --- ARRANGE ---
+        Cart cart = Cart.builder().userId("user-1").build();
+        cart.addItem(CartItem.builder().productId("a").quantity(2).priceCents(1000L).build());
+        cart.addItem(CartItem.builder().productId("b").quantity(1).priceCents(250L).build());
+
+        // --- ACT ---
+        boolean updated = cart.setItemQuantity("a", 5);
+        boolean removed = cart.removeItem("b");
+        boolean missing = cart.setItemQuantity("inexistente", 1);
+
+        // --- ASSERT ---
+        assertTrue(updated);
+        assertTrue(removed);
+        assertFalse(missing, "Produto fora do carrinho não é criado por setItemQuantity.");
+        assertEquals(5000L, cart.getTotalPriceCents());
+        assertEquals(5, cart.getItemCount());
+        assertFalse(cart.getItems().containsKey("b"));
+    }
+}
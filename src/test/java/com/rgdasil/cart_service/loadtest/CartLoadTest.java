@@ -0,0 +1,150 @@
+package com.rgdasil.cart_service.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Teste de carga ponta a ponta: a aplicacao sobe de verdade, com WireMock no
+ * lugar do auth-service e do product-service (latencia e taxa de erro
+ * configuraveis) e um Redis local. So roda com o profile {@code loadtest}:
+ *
+ * <pre>
+ * ./mvnw -Ploadtest test -Dloadtest.rate=300 -Dloadtest.duration=2m
+ * </pre>
+ *
+ * Sem {@code -Dloadtest.redis.host} um Redis e iniciado via Testcontainers.
+ * O relatorio (throughput e p50/p99/p999 por operacao) vai para
+ * {@code target/loadtest-report.json}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class CartLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CartLoadTest.class);
+
+    private static final LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+
+    private static GenericContainer<?> redis;
+
+    @RegisterExtension
+    static WireMockExtension authService = WireMockExtension.newInstance()
+            .options(stubServerConfig(settings.authErrorRate()))
+            .build();
+
+    @RegisterExtension
+    static WireMockExtension productService = WireMockExtension.newInstance()
+            .options(stubServerConfig(settings.productErrorRate()))
+            .build();
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void overrideProperties(DynamicPropertyRegistry registry) {
+        String redisHost = System.getProperty("loadtest.redis.host");
+        if (redisHost != null) {
+            registry.add("spring.data.redis.host", () -> redisHost);
+            registry.add("spring.data.redis.port", () -> System.getProperty("loadtest.redis.port", "6379"));
+        } else {
+            redis = new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+            redis.start();
+            registry.add("spring.data.redis.host", redis::getHost);
+            registry.add("spring.data.redis.port", () -> redis.getMappedPort(6379).toString());
+        }
+        registry.add("service.auth.url", () -> authService.baseUrl() + "/auth/validate");
+        registry.add("service.product.url", productService::baseUrl);
+        registry.add("cache.product.enabled", () -> String.valueOf(settings.productCache()));
+        // Log por requisicao distorce a medicao
+        registry.add("logging.level.com.rgdasil", () -> "WARN");
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        if (redis != null) {
+            redis.stop();
+        }
+    }
+
+    @Test
+    void runLoadTest() throws Exception {
+        // --- ARRANGE ---
+        int jitterMillis = (int) settings.latencyJitter().toMillis();
+        authService.stubFor(post(urlEqualTo("/auth/validate"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"valid\":true,\"userId\":\"{{jsonPath request.body '$.token'}}\"}")
+                        .withTransformers("response-template")
+                        .withUniformRandomDelay((int) settings.authLatency().toMillis(),
+                                (int) settings.authLatency().toMillis() + jitterMillis)));
+
+        productService.stubFor(get(urlPathMatching("/prod-[0-9]+"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"id\":\"{{request.pathSegments.[0]}}\",\"name\":\"Produto {{request.pathSegments.[0]}}\","
+                                + "\"price\":19.9,\"stock\":100}")
+                        .withTransformers("response-template")
+                        .withUniformRandomDelay((int) settings.productLatency().toMillis(),
+                                (int) settings.productLatency().toMillis() + jitterMillis)));
+
+        LoadGenerator generator = new LoadGenerator(URI.create("http://localhost:" + port), settings);
+
+        // --- ACT ---
+        // Aquecimento (JIT, pools de conexao, caches) fora do relatorio
+        generator.run(settings.warmup());
+        Map<String, LoadGenerator.OperationStats> stats = generator.run(settings.duration());
+
+        // --- ASSERT ---
+        Map<String, Object> operations = new LinkedHashMap<>();
+        stats.forEach((operation, operationStats) -> operations.put(operation, operationStats.summary()));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", settings);
+        report.put("operations", operations);
+        report.put("total", LoadGenerator.OperationStats.merge(stats.values()).summary());
+
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        Files.createDirectories(settings.report().toAbsolutePath().getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(settings.report().toFile(), report);
+        // WARN: o teste baixa o log de com.rgdasil para WARN
+        log.warn("Load test finished, report at {}: {}", settings.report().toAbsolutePath(),
+                objectMapper.writeValueAsString(report.get("total")));
+
+        long expected = settings.rate() * settings.duration().toSeconds();
+        assertEquals(expected, ((Number) ((Map<?, ?>) report.get("total")).get("requests")).longValue(),
+                "Every request issued by the generator should have completed");
+    }
+
+    private static WireMockConfiguration stubServerConfig(double errorRate) {
+        return wireMockConfig()
+                .dynamicPort()
+                // Respostas com atraso sem prender uma thread do Jetty por requisicao
+                .asynchronousResponseEnabled(true)
+                .asynchronousResponseThreads(50)
+                .containerThreads(100)
+                .extensions(new FaultInjector(errorRate));
+    }
+}
@@ -0,0 +1,39 @@
+package com.rgdasil.cart_service.loadtest;
+
+import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformerV2;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder.responseDefinition;
+
+/**
+ * Troca uma fracao das respostas do WireMock por 503, simulando uma
+ * dependencia instavel. A latencia injetada no stub e mantida.
+ */
+class FaultInjector implements ResponseDefinitionTransformerV2 {
+
+    private final double errorRate;
+
+    FaultInjector(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    @Override
+    public ResponseDefinition transform(ServeEvent serveEvent) {
+        ResponseDefinition original = serveEvent.getResponseDefinition();
+        if (errorRate <= 0 || ThreadLocalRandom.current().nextDouble() >= errorRate) {
+            return original;
+        }
+        return responseDefinition()
+                .withStatus(503)
+                .withRandomDelay(original.getDelayDistribution())
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return "fault-injector";
+    }
+}
@@ -0,0 +1,161 @@
+package com.rgdasil.cart_service.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Gerador de carga em malha aberta: as requisicoes saem numa taxa fixa,
+ * independente de quanto o servico demora para responder. A latencia e
+ * medida a partir do instante em que a requisicao deveria ter saido, para
+ * que atrasos do proprio gerador nao escondam filas (coordinated omission).
+ */
+class LoadGenerator {
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final URI baseUri;
+    private final LoadTestSettings settings;
+    private final String[] operations;
+    private final int[] cumulativeWeights;
+
+    LoadGenerator(URI baseUri, LoadTestSettings settings) {
+        this.baseUri = baseUri;
+        this.settings = settings;
+        this.operations = settings.mix().keySet().toArray(String[]::new);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += settings.mix().get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * Dispara {@code rate * duration} requisicoes e espera todas terminarem.
+     */
+    Map<String, OperationStats> run(Duration duration) throws InterruptedException {
+        long total = settings.rate() * duration.toSeconds();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / settings.rate();
+        Map<String, OperationStats> stats = new LinkedHashMap<>();
+        for (String operation : operations) {
+            stats.put(operation, new OperationStats());
+        }
+
+        CountDownLatch completed = new CountDownLatch((int) total);
+        long start = System.nanoTime();
+
+        for (long i = 0; i < total; i++) {
+            long intendedStart = start + i * intervalNanos;
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            String operation = pickOperation();
+            OperationStats operationStats = stats.get(operation);
+            httpClient.sendAsync(request(operation), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        operationStats.record(System.nanoTime() - intendedStart,
+                                error == null && isExpected(operation, response.statusCode()));
+                        completed.countDown();
+                    });
+        }
+
+        completed.await(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        long elapsedNanos = System.nanoTime() - start;
+        stats.values().forEach(operationStats -> operationStats.elapsedNanos = elapsedNanos);
+        return stats;
+    }
+
+    private String pickOperation() {
+        int roll = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    private HttpRequest request(String operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(baseUri.resolve("/cart"))
+                .timeout(Duration.ofSeconds(30))
+                // O stub do auth-service devolve o proprio token como userId
+                .header("Authorization", "Bearer loadtest-user-" + random.nextInt(settings.users()));
+
+        return switch (operation) {
+            case "add" -> builder
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"productId\":\"prod-"
+                            + random.nextInt(settings.products()) + "\",\"quantity\":" + (1 + random.nextInt(3)) + "}"))
+                    .build();
+            case "get" -> builder.GET().build();
+            case "delete" -> builder.DELETE().build();
+            default -> throw new IllegalArgumentException("Unknown operation in loadtest.mix: " + operation);
+        };
+    }
+
+    // GET e DELETE de um carrinho que nao existe respondem 404, o que e esperado
+    private static boolean isExpected(String operation, int status) {
+        return status < 300 || (status == 404 && !"add".equals(operation));
+    }
+
+    static final class OperationStats {
+
+        private final ConcurrentLinkedQueue<Long> latenciesNanos = new ConcurrentLinkedQueue<>();
+        private final AtomicLong errors = new AtomicLong();
+        private volatile long elapsedNanos;
+
+        void record(long latencyNanos, boolean success) {
+            latenciesNanos.add(latencyNanos);
+            if (!success) {
+                errors.incrementAndGet();
+            }
+        }
+
+        Map<String, Object> summary() {
+            long[] sorted = latenciesNanos.stream().mapToLong(Long::longValue).sorted().toArray();
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("requests", sorted.length);
+            summary.put("errors", errors.get());
+            summary.put("throughputPerSecond", sorted.length / (elapsedNanos / 1e9));
+            summary.put("p50Ms", percentileMillis(sorted, 0.50));
+            summary.put("p99Ms", percentileMillis(sorted, 0.99));
+            summary.put("p999Ms", percentileMillis(sorted, 0.999));
+            summary.put("maxMs", sorted.length > 0 ? sorted[sorted.length - 1] / 1e6 : 0);
+            return summary;
+        }
+
+        static OperationStats merge(Iterable<OperationStats> all) {
+            OperationStats merged = new OperationStats();
+            for (OperationStats stats : all) {
+                merged.latenciesNanos.addAll(stats.latenciesNanos);
+                merged.errors.addAndGet(stats.errors.get());
+                merged.elapsedNanos = stats.elapsedNanos;
+            }
+            return merged;
+        }
+
+        // Nearest-rank
+        private static double percentileMillis(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile * sorted.length);
+            return sorted[Math.max(rank, 1) - 1] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.rgdasil.cart_service.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parametros do teste de carga, lidos de propriedades de sistema
+ * ({@code -Dloadtest.rate=300} etc.), com valores padrao para uma maquina so.
+ */
+record LoadTestSettings(
+        int rate,
+        Duration warmup,
+        Duration duration,
+        int users,
+        int products,
+        Map<String, Integer> mix,
+        Duration authLatency,
+        Duration productLatency,
+        Duration latencyJitter,
+        double authErrorRate,
+        double productErrorRate,
+        boolean productCache,
+        Path report) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.parseInt(property("rate", "200")),
+                duration("warmup", "10s"),
+                duration("duration", "60s"),
+                Integer.parseInt(property("users", "1000")),
+                Integer.parseInt(property("products", "500")),
+                mix(property("mix", "add:50,get:40,delete:10")),
+                duration("auth.latency", "5ms"),
+                duration("product.latency", "20ms"),
+                duration("latency-jitter", "10ms"),
+                Double.parseDouble(property("auth.error-rate", "0")),
+                Double.parseDouble(property("product.error-rate", "0.01")),
+                Boolean.parseBoolean(property("product-cache", "true")),
+                Path.of(property("report", "target/loadtest-report.json")));
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("loadtest." + name, defaultValue);
+    }
+
+    private static Duration duration(String name, String defaultValue) {
+        return DurationStyle.detectAndParse(property(name, defaultValue));
+    }
+
+    /**
+     * Formato {@code operacao:peso,...}, ex.: {@code add:50,get:40,delete:10}.
+     */
+    private static Map<String, Integer> mix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split(":");
+            mix.put(parts[0], Integer.parseInt(parts[1]));
+        }
+        return mix;
+    }
+}
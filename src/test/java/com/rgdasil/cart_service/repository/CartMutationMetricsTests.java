@@ -0,0 +1,75 @@
+package com.rgdasil.cart_service.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartMutationMetricsTests {
+
+    @Test
+    void whenMutationsOverlapForSameUser_thenEachLateOneCountsAsContention() throws Exception {
+        // --- ARRANGE ---
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CartMutationMetrics metrics = new CartMutationMetrics(meterRegistry);
+
+        int mutations = 6;
+        CountDownLatch started = new CountDownLatch(mutations);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(mutations);
+        List<Future<String>> results = new ArrayList<>();
+
+        // --- ACT ---
+        // Todas as mutações ficam em andamento ao mesmo tempo
+        for (int i = 0; i < mutations; i++) {
+            results.add(executor.submit(() -> metrics.record("add", "user-1", () -> {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "ok";
+            })));
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        release.countDown();
+        for (Future<String> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+
+        // --- ASSERT ---
+        assertEquals(mutations - 1, meterRegistry.counter("cart.mutation.contention").count());
+        assertEquals(mutations, meterRegistry.counter("cart.mutations", "operation", "add", "outcome", "success").count());
+        executor.shutdown();
+    }
+
+    @Test
+    void whenMutationsAreSequentialOrForOtherUsers_thenNoContentionIsCounted() {
+        // --- ARRANGE ---
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CartMutationMetrics metrics = new CartMutationMetrics(meterRegistry);
+
+        // --- ACT ---
+        metrics.record("add", "user-1", () -> "ok");
+        metrics.record("add", "user-1", () -> "ok");
+        metrics.record("add", "user-1", () -> metrics.record("merge", "user-2", () -> "ok"));
+        assertThrows(IllegalStateException.class, () -> metrics.record("remove", "user-1", () -> {
+            throw new IllegalStateException("redis down");
+        }));
+        metrics.record("add", "user-1", () -> "ok");
+
+        // --- ASSERT ---
+        // A falha também libera a contagem: a mutação seguinte não conta como disputa
+        assertEquals(0, meterRegistry.counter("cart.mutation.contention").count());
+        assertEquals(1, meterRegistry.counter("cart.mutations", "operation", "remove", "outcome", "error").count());
+    }
+}
@@ -0,0 +1,111 @@
+package com.rgdasil.cart_service.repository;
+
+import com.rgdasil.cart_service.domain.Cart;
+import com.rgdasil.cart_service.domain.CartItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactCartCodecTests {
+
+    @Test
+    void whenItemIsEncoded_thenDecodeRestoresIt() {
+        // --- ARRANGE ---
+        CartItem item = CartItem.builder().productId("p1").productName("Caneca").quantity(2).priceCents(1250L).build();
+
+        // --- ACT ---
+        String value = CompactCartCodec.encode(item);
+
+        // --- ASSERT ---
+        assertEquals("2|1250|Caneca", value);
+        assertEquals(item, CompactCartCodec.decode("p1", value));
+    }
+
+    @Test
+    void whenNameContainsSeparator_thenItIsKeptWhole() {
+        // --- ACT ---
+        CartItem item = CompactCartCodec.decode("p1", "1|990|Kit | Caneca | Pires");
+
+        // --- ASSERT ---
+        assertEquals("Kit | Caneca | Pires", item.getProductName());
+        assertEquals(990L, item.getPriceCents());
+    }
+
+    @Test
+    void whenValueHasLegacyDecimalPrice_thenItIsConvertedToCents() {
+        // --- ACT ---
+        CartItem decimal = CompactCartCodec.decode("p1", "3|10.5|Caneca");
+        CartItem exponent = CompactCartCodec.decode("p2", "1|1.0E7|Notebook");
+
+        // --- ASSERT ---
+        assertEquals(1050L, decimal.getPriceCents());
+        assertEquals(3, decimal.getQuantity());
+        assertEquals(1_000_000_000L, exponent.getPriceCents());
+    }
+
+    @Test
+    void whenNameIsEmpty_thenDecodedNameIsNull() {
+        // --- ACT ---
+        CartItem item = CompactCartCodec.decode("p1", "1|500|");
+
+        // --- ASSERT ---
+        assertNull(item.getProductName());
+        assertEquals(500L, item.getPriceCents());
+    }
+
+    @Test
+    void whenHashHasMetadataFields_thenTheyAreNotItems() {
+        // --- ARRANGE ---
+        Map<String, String> fields = Map.of(
+                "p1", "2|1000|Caneca",
+                CompactCartCodec.VERSION_FIELD, "42",
+                "@futuro", "qualquer coisa");
+
+        // --- ACT ---
+        Cart cart = CompactCartCodec.decode("user-1", fields);
+
+        // --- ASSERT ---
+        assertEquals(Map.of("p1", CartItem.builder().productId("p1").productName("Caneca").quantity(2).priceCents(1000L).build()),
+                cart.getItems());
+        assertEquals(42L, cart.getVersion());
+        assertEquals(2000L, cart.getTotalPriceCents());
+    }
+
+    @Test
+    void whenCartIsEncoded_thenVersionGoesToMetadataField() {
+        // --- ARRANGE ---
+        Cart cart = Cart.builder()
+                .userId("user-1")
+                .version(7L)
+                .items(Map.of("p1", CartItem.builder().productId("p1").quantity(1).priceCents(300L).build()))
+                .build();
+
+        // --- ACT ---
+        Map<String, String> fields = CompactCartCodec.encode(cart);
+
+        // --- ASSERT ---
+        assertEquals(Map.of("p1", "1|300|", CompactCartCodec.VERSION_FIELD, "7"), fields);
+    }
+
+    @Test
+    void whenScriptReturnsFlatHgetall_thenPairsAreDecoded() {
+        // --- ACT ---
+        Cart cart = CompactCartCodec.decode("user-1", List.of("@version", "3", "p1", "1|100|A", "p2", "4|250|B"));
+
+        // --- ASSERT ---
+        assertEquals(3L, cart.getVersion());
+        assertEquals(2, cart.getItems().size());
+        assertEquals(4, cart.getItems().get("p2").getQuantity());
+        assertEquals(1100L, cart.getTotalPriceCents());
+    }
+
+    @Test
+    void whenKeyIsBuilt_thenUserIdRoundTrips() {
+        // --- ACT & ASSERT ---
+        assertEquals("cart:user-1", CompactCartCodec.key("user-1"));
+        assertEquals("user-1", CompactCartCodec.userId(CompactCartCodec.key("user-1")));
+    }
+}
@@ -0,0 +1,151 @@
+package com.rgdasil.cart_service.repository;
+
+import com.redis.testcontainers.RedisContainer;
+import com.rgdasil.cart_service.domain.Cart;
+import com.rgdasil.cart_service.domain.CartItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisKeyValueTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Scripts Lua do layout compacto contra um Redis real.
+ */
+@Testcontainers
+class CompactCartOperationsTests {
+
+    @Container
+    static RedisContainer redis = new RedisContainer(DockerImageName.parse("redis:7-alpine"));
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private RedisKeyValueTemplate legacyTemplate;
+    private CompactCartRepository repository;
+    private CompactCartOperations operations;
+
+    private final String userId = "user-123";
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getRedisPort());
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+
+        legacyTemplate = mock(RedisKeyValueTemplate.class);
+        when(legacyTemplate.findById(anyString(), eq(Cart.class))).thenReturn(Optional.empty());
+        repository = new CompactCartRepository(redisTemplate, legacyTemplate, true);
+        operations = new CompactCartOperations(redisTemplate, repository, new CartMutationMetrics(new SimpleMeterRegistry()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void whenItemIsAddedTwice_thenQuantityIsSummedAndVersionAdvances() {
+        // --- ACT ---
+        Cart first = operations.addItems(userId, List.of(item("p1", 1, 1000L)));
+        Cart second = operations.addItems(userId, List.of(item("p1", 2, 1000L)));
+
+        // --- ASSERT ---
+        assertEquals(3, second.getItems().get("p1").getQuantity());
+        assertEquals("Produto p1", second.getItems().get("p1").getProductName());
+        assertEquals(first.getVersion() + 1, second.getVersion());
+        assertTrue(redisTemplate.getExpire(CompactCartCodec.key(userId)) > 0);
+    }
+
+    @Test
+    void whenLegacyCartIsMigrated_thenItMovesToCompactLayout() {
+        // --- ARRANGE ---
+        when(legacyTemplate.findById(userId, Cart.class)).thenReturn(Optional.of(legacyCart()));
+
+        // --- ACT ---
+        Optional<Cart> cart = repository.findById(userId);
+
+        // --- ASSERT ---
+        assertEquals(1, cart.orElseThrow().getItems().get("p1").getQuantity());
+        assertEquals("1|1000|Produto p1", redisTemplate.opsForHash().get(CompactCartCodec.key(userId), "p1"));
+        assertTrue(redisTemplate.getExpire(CompactCartCodec.key(userId)) > 0);
+        verify(legacyTemplate).delete(userId, Cart.class);
+    }
+
+    @Test
+    void whenStaleMigrationRunsAfterAnotherMutation_thenItDoesNotOverwriteTheCart() {
+        // --- ARRANGE ---
+        // As duas mutações leram o carrinho antigo antes de qualquer uma migrar
+        when(legacyTemplate.findById(userId, Cart.class)).thenReturn(Optional.of(legacyCart()));
+        operations.addItems(userId, List.of(item("p1", 2, 1000L)));
+
+        // --- ACT ---
+        Optional<Cart> migrated = repository.migrateLegacy(userId);
+
+        // --- ASSERT ---
+        // A migração atrasada devolve o que já está no layout compacto, sem desfazer a soma
+        assertEquals(3, migrated.orElseThrow().getItems().get("p1").getQuantity());
+        assertEquals(3, repository.findById(userId).orElseThrow().getItems().get("p1").getQuantity());
+    }
+
+    @Test
+    void whenCartIsSaved_thenPreviousItemsAreReplaced() {
+        // --- ARRANGE ---
+        operations.addItems(userId, List.of(item("p1", 1, 1000L), item("p2", 1, 500L)));
+
+        // --- ACT ---
+        repository.save(Cart.builder().userId(userId).items(Map.of("p2", item("p2", 4, 500L))).build());
+
+        // --- ASSERT ---
+        Cart cart = repository.findById(userId).orElseThrow();
+        assertEquals(Map.of("p2", item("p2", 4, 500L)), cart.getItems());
+    }
+
+    @Test
+    void whenCatalogSendsNoName_thenRepriceKeepsTheStoredName() {
+        // --- ARRANGE ---
+        operations.addItems(userId, List.of(item("p1", 2, 1000L), item("p2", 1, 500L)));
+        CartItem unnamed = CartItem.builder().productId("p1").quantity(2).priceCents(1200L).build();
+        CartItem renamed = item("p2", 1, 450L).toBuilder().productName("Pires | branco").build();
+
+        // --- ACT ---
+        long changed = operations.repriceItems(Map.of(userId, List.of(unnamed, renamed)));
+
+        // --- ASSERT ---
+        assertEquals(2, changed);
+        assertEquals("2|1200|Produto p1", redisTemplate.opsForHash().get(CompactCartCodec.key(userId), "p1"));
+        assertEquals("1|450|Pires | branco", redisTemplate.opsForHash().get(CompactCartCodec.key(userId), "p2"));
+    }
+
+    private static Cart legacyCart() {
+        return Cart.builder()
+                .userId("user-123")
+                .items(Map.of("p1", item("p1", 1, 1000L)))
+                .build();
+    }
+
+    private static CartItem item(String productId, int quantity, long priceCents) {
+        return CartItem.builder()
+                .productId(productId)
+                .productName("Produto " + productId)
+                .quantity(quantity)
+                .priceCents(priceCents)
+                .build();
+    }
+}
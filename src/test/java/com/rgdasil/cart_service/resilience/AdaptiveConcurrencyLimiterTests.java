@@ -0,0 +1,82 @@
+package com.rgdasil.cart_service.resilience;
+
+import com.rgdasil.cart_service.config.ConcurrencyLimitProperties;
+import com.rgdasil.cart_service.exception.ConcurrencyLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTests {
+
+    private static AdaptiveConcurrencyLimiter limiter(int initialLimit, int minLimit, int maxLimit) {
+        ConcurrencyLimitProperties.Limit properties = new ConcurrencyLimitProperties.Limit();
+        properties.setInitialLimit(initialLimit);
+        properties.setMinLimit(minLimit);
+        properties.setMaxLimit(maxLimit);
+        properties.setLatencyThreshold(Duration.ofSeconds(10));
+        properties.setBackoffRatio(0.5);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("product", properties);
+        limiter.bindMetrics(new SimpleMeterRegistry());
+        return limiter;
+    }
+
+    @Test
+    void whenLimitIsReached_thenExtraCallIsRejected() {
+        // --- ARRANGE ---
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 1);
+
+        // --- ACT & ASSERT ---
+        // A chamada aninhada encontra a única vaga ocupada
+        assertThrows(ConcurrencyLimitExceededException.class,
+                () -> limiter.execute(() -> limiter.execute(() -> "nested")));
+        assertEquals(0, limiter.getInFlight(), "A vaga deve ser liberada mesmo com a falha.");
+    }
+
+    @Test
+    void whenDependencyTimesOut_thenLimitShrinksMultiplicatively() {
+        // --- ARRANGE ---
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 2, 50);
+
+        // --- ACT ---
+        assertThrows(ResourceAccessException.class, () -> limiter.execute(() -> {
+            throw new ResourceAccessException("Read timed out");
+        }));
+
+        // --- ASSERT ---
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void whenDependencyAnswersClientError_thenLimitIsKept() {
+        // --- ARRANGE ---
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 2, 50);
+
+        // --- ACT ---
+        assertThrows(HttpClientErrorException.class, () -> limiter.execute(() -> {
+            throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+        }));
+
+        // --- ASSERT ---
+        // 404 não é sinal de sobrecarga, e com uma chamada só o limite não estava em uso para crescer
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void whenLimitIsInUseAndCallsAreFast_thenLimitGrowsAdditively() {
+        // --- ARRANGE ---
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 1, 50);
+
+        // --- ACT ---
+        // Duas chamadas simultâneas ocupam o limite inteiro; só a que termina com ele cheio o aumenta
+        limiter.execute(() -> limiter.execute(() -> "ok"));
+
+        // --- ASSERT ---
+        assertEquals(3, limiter.getLimit());
+    }
+}
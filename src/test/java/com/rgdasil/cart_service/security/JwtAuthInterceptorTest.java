@@ -1,12 +1,15 @@
 package com.rgdasil.cart_service.security;
 
 import com.rgdasil.cart_service.dto.AuthResponse;
+import com.rgdasil.cart_service.metrics.HopMetrics;
+import com.rgdasil.cart_service.resilience.DependencyGuard;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpEntity;
@@ -22,6 +25,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 import java.io.PrintWriter;
+import java.util.Optional;
 
 @ExtendWith(MockitoExtension.class)
 public class JwtAuthInterceptorTest {
@@ -29,7 +33,14 @@ public class JwtAuthInterceptorTest {
     @Mock
     private RestTemplate restTemplate;
 
-    @InjectMocks
+    @Mock
+    private TokenValidationCache tokenValidationCache;
+
+    @Mock
+    private LocalJwtVerifier localJwtVerifier;
+
+    private SimpleMeterRegistry meterRegistry;
+
     private JwtAuthInterceptor jwtAuthInterceptor;
 
     @Mock
@@ -46,6 +57,9 @@ public class JwtAuthInterceptorTest {
 
     @BeforeEach
     void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        jwtAuthInterceptor = new JwtAuthInterceptor(restTemplate, tokenValidationCache, localJwtVerifier,
+                new HopMetrics(meterRegistry), DependencyGuard.unguarded());
         ReflectionTestUtils.setField(jwtAuthInterceptor, "authServiceUrl", "http://fake-auth-service/auth/validate");
         ReflectionTestUtils.setField(jwtAuthInterceptor, "internalApiKey", "fake-api-key");
     }
@@ -83,6 +97,64 @@ public class JwtAuthInterceptorTest {
 
         // Verifica se o userId foi corretamente adicionado como um atributo no request.
         verify(request, times(1)).setAttribute("userId", userId);
+        // O resultado deve ser guardado no cache para as próximas requisições.
+        verify(tokenValidationCache, times(1)).putValid(validToken, userId);
+    }
+
+    @Test
+    void whenTokenIsCached_thenAuthServiceIsNotCalled() throws Exception {
+        // --- ARRANGE ---
+        String cachedToken = "cached-jwt-token";
+        String userId = "user-abc-123";
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + cachedToken);
+        when(tokenValidationCache.getUserId(cachedToken)).thenReturn(Optional.of(userId));
+
+        // --- ACT ---
+        boolean result = jwtAuthInterceptor.preHandle(request, response, handler);
+
+        // --- ASSERT ---
+        assertTrue(result, "O interceptor deveria aceitar um token presente no cache.");
+        verify(request, times(1)).setAttribute("userId", userId);
+        // Nenhuma chamada ao auth-service deve acontecer.
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void whenLocalVerificationAcceptsToken_thenAuthServiceIsNotCalled() throws Exception {
+        // --- ARRANGE ---
+        String localToken = "locally-signed-token";
+        String userId = "user-local-1";
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + localToken);
+        when(localJwtVerifier.isEnabled()).thenReturn(true);
+        when(localJwtVerifier.verify(localToken)).thenReturn(new LocalJwtVerifier.Result(LocalJwtVerifier.Status.VALID, userId));
+
+        // --- ACT ---
+        boolean result = jwtAuthInterceptor.preHandle(request, response, handler);
+
+        // --- ASSERT ---
+        assertTrue(result, "O interceptor deveria aceitar um token verificado localmente.");
+        verify(request, times(1)).setAttribute("userId", userId);
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void whenTokenWasRejectedBefore_thenAuthServiceIsNotCalled() throws Exception {
+        // --- ARRANGE ---
+        when(response.getWriter()).thenReturn(printWriter);
+        String rejectedToken = "rejected-jwt-token";
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + rejectedToken);
+        when(tokenValidationCache.isRejected(rejectedToken)).thenReturn(true);
+
+        // --- ACT ---
+        boolean result = jwtAuthInterceptor.preHandle(request, response, handler);
+
+        // --- ASSERT ---
+        assertFalse(result, "O interceptor deveria rejeitar um token presente no cache negativo.");
+        verify(response, times(1)).setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        verifyNoInteractions(restTemplate);
     }
 
     @Test
@@ -145,6 +217,8 @@ public class JwtAuthInterceptorTest {
         verify(response, times(1)).setStatus(HttpServletResponse.SC_UNAUTHORIZED);
         // Garante que o atributo userId NÃO foi adicionado ao request
         verify(request, never()).setAttribute(eq("userId"), any());
+        // A rejeição vai para o cache negativo
+        verify(tokenValidationCache, times(1)).putRejected(invalidToken);
     }
 
     @Test
@@ -166,4 +240,23 @@ public class JwtAuthInterceptorTest {
         assertFalse(result, "O interceptor deveria retornar false se a chamada ao auth-service falhar.");
         verify(response, times(1)).setStatus(HttpServletResponse.SC_UNAUTHORIZED);
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenTokenIsValidatedRemotely_thenAuthHopIsTimedByOutcome() throws Exception {
+        // --- ARRANGE ---
+        when(response.getWriter()).thenReturn(printWriter);
+        when(request.getHeader("Authorization")).thenReturn("Bearer any-token");
+        when(restTemplate.exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), eq(AuthResponse.class)))
+            .thenThrow(new RuntimeException("Connection refused"));
+
+        // --- ACT ---
+        jwtAuthInterceptor.preHandle(request, response, handler);
+
+        // --- ASSERT ---
+        Timer timer = meterRegistry.find(HopMetrics.HOP_TIMER)
+                .tags("hop", HopMetrics.AUTH, "outcome", "error")
+                .timer();
+        assertNotNull(timer, "A falha do auth-service deveria ser medida com outcome=error.");
+        assertEquals(1, timer.count());
+    }
+}
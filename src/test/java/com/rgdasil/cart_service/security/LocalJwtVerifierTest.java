@@ -0,0 +1,81 @@
+package com.rgdasil.cart_service.security;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalJwtVerifierTest {
+
+    private static final String SECRET = "a-very-long-shared-secret-for-hs256-tests";
+
+    private LocalJwtVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        verifier = new LocalJwtVerifier(true, true, false, "user_id", Duration.ofSeconds(30),
+                SECRET, "", "");
+    }
+
+    @Test
+    void whenSignatureAndClaimsAreValid_thenReturnsUserId() throws Exception {
+        // --- ARRANGE ---
+        String token = sign(SECRET, Instant.now().plusSeconds(300), "user-42");
+
+        // --- ACT ---
+        LocalJwtVerifier.Result result = verifier.verify(token);
+
+        // --- ASSERT ---
+        assertEquals(LocalJwtVerifier.Status.VALID, result.status());
+        assertEquals("user-42", result.userId());
+    }
+
+    @Test
+    void whenTokenIsExpired_thenReturnsInvalid() throws Exception {
+        // --- ARRANGE ---
+        String token = sign(SECRET, Instant.now().minusSeconds(300), "user-42");
+
+        // --- ACT & ASSERT ---
+        assertEquals(LocalJwtVerifier.Status.INVALID, verifier.verify(token).status());
+    }
+
+    @Test
+    void whenSignedWithAnotherSecret_thenReturnsInvalid() throws Exception {
+        // --- ARRANGE ---
+        String token = sign("another-secret-that-is-also-long-enough!!", Instant.now().plusSeconds(300), "user-42");
+
+        // --- ACT & ASSERT ---
+        assertEquals(LocalJwtVerifier.Status.INVALID, verifier.verify(token).status());
+    }
+
+    @Test
+    void whenNoKeyMatchesAlgorithm_thenReturnsUnverifiable() throws Exception {
+        // --- ARRANGE ---
+        // Sem nenhuma chave configurada o token não pode ser verificado localmente
+        LocalJwtVerifier withoutKeys = new LocalJwtVerifier(true, true, false, "user_id", Duration.ZERO, "", "", "");
+        String token = sign(SECRET, Instant.now().plusSeconds(300), "user-42");
+
+        // --- ACT & ASSERT ---
+        assertEquals(LocalJwtVerifier.Status.UNVERIFIABLE, withoutKeys.verify(token).status());
+    }
+
+    private String sign(String secret, Instant expiresAt, String userId) throws Exception {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .claim("user_id", userId)
+                .expirationTime(Date.from(expiresAt))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), claims);
+        jwt.sign(new MACSigner(secret.getBytes(StandardCharsets.UTF_8)));
+        return jwt.serialize();
+    }
+}
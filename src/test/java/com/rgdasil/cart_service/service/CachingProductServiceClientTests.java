@@ -0,0 +1,85 @@
+package com.rgdasil.cart_service.service;
+
+import com.rgdasil.cart_service.dto.ProductDTO;
+import com.rgdasil.cart_service.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingProductServiceClientTests {
+
+    @Mock
+    private ProductServiceClient delegate;
+
+    private final String productId = "prod-cache-1";
+    private ProductDTO product;
+
+    @BeforeEach
+    void setUp() {
+        product = ProductDTO.builder().id(productId).name("Produto em Cache").price(10.0).build();
+    }
+
+    @Test
+    void whenProductIsFresh_thenDelegateIsCalledOnce() {
+        // --- ARRANGE ---
+        CachingProductServiceClient client = newClient(Duration.ofMinutes(1));
+        when(delegate.getProductById(productId)).thenReturn(Optional.of(product));
+
+        // --- ACT ---
+        client.getProductById(productId);
+        Optional<ProductDTO> result = client.getProductById(productId);
+
+        // --- ASSERT ---
+        assertEquals(Optional.of(product), result);
+        verify(delegate, times(1)).getProductById(productId);
+    }
+
+    @Test
+    void whenProductIsNotFound_thenMissIsCached() {
+        // --- ARRANGE ---
+        CachingProductServiceClient client = newClient(Duration.ofMinutes(1));
+        when(delegate.getProductById(productId)).thenReturn(Optional.empty());
+
+        // --- ACT ---
+        client.getProductById(productId);
+        Optional<ProductDTO> result = client.getProductById(productId);
+
+        // --- ASSERT ---
+        assertTrue(result.isEmpty());
+        verify(delegate, times(1)).getProductById(productId);
+    }
+
+    @Test
+    void whenEntryIsStaleAndServiceIsDown_thenStaleProductIsServed() {
+        // --- ARRANGE ---
+        // TTL zero: toda leitura após a primeira encontra a entrada vencida
+        CachingProductServiceClient client = newClient(Duration.ZERO);
+        when(delegate.getProductById(productId))
+                .thenReturn(Optional.of(product))
+                .thenThrow(new ServiceUnavailableException("circuit open"));
+
+        // --- ACT ---
+        client.getProductById(productId);
+        Optional<ProductDTO> result = client.getProductById(productId);
+
+        // --- ASSERT ---
+        // A entrada antiga é servida e o refresh em background foi tentado
+        assertEquals(Optional.of(product), result);
+        verify(delegate, times(2)).getProductById(productId);
+    }
+
+    private CachingProductServiceClient newClient(Duration ttl) {
+        // Executor síncrono para que o refresh em background seja determinístico no teste
+        return new CachingProductServiceClient(delegate, Runnable::run, 100, ttl,
+                Duration.ofSeconds(10), Duration.ofMinutes(10));
+    }
+}
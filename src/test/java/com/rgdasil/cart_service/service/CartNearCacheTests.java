@@ -0,0 +1,84 @@
+package com.rgdasil.cart_service.service;
+
+import com.rgdasil.cart_service.domain.Cart;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CartNearCacheTests {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private CartNearCache nearCache;
+    private final String userId = "user-near-1";
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        nearCache = new CartNearCache(redisTemplate, "cart-invalidations", 100, Duration.ofMinutes(1),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void whenCartIsCached_thenRedisIsReadOnce() {
+        // --- ACT ---
+        nearCache.get(userId, this::load);
+        Optional<Cart> result = nearCache.get(userId, this::load);
+
+        // --- ASSERT ---
+        assertTrue(result.isPresent());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void whenCartIsWrittenLocally_thenEntryIsDroppedAndOtherInstancesAreNotified() {
+        // --- ARRANGE ---
+        nearCache.get(userId, this::load);
+
+        // --- ACT ---
+        nearCache.invalidate(userId);
+        nearCache.get(userId, this::load);
+
+        // --- ASSERT ---
+        assertEquals(2, loads.get());
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq("cart-invalidations"), message.capture());
+        assertTrue(message.getValue().endsWith("|" + userId));
+    }
+
+    @Test
+    void whenAnotherInstanceWritesTheCart_thenLocalEntryIsDropped() {
+        // --- ARRANGE ---
+        nearCache.get(userId, this::load);
+        String payload = "other-instance|" + System.currentTimeMillis() + "|" + userId;
+
+        // --- ACT ---
+        nearCache.onMessage(new DefaultMessage("cart-invalidations".getBytes(StandardCharsets.UTF_8),
+                payload.getBytes(StandardCharsets.UTF_8)), null);
+
+        // --- ASSERT ---
+        assertTrue(nearCache.getIfPresent(userId).isEmpty());
+    }
+
+    private Optional<Cart> load(String id) {
+        loads.incrementAndGet();
+        return Optional.of(Cart.builder().userId(id).build());
+    }
+}
@@ -0,0 +1,133 @@
+package com.rgdasil.cart_service.service;
+
+import com.rgdasil.cart_service.domain.Cart;
+import com.rgdasil.cart_service.domain.CartItem;
+import com.rgdasil.cart_service.dto.ProductDTO;
+import com.rgdasil.cart_service.exception.ServiceUnavailableException;
+import com.rgdasil.cart_service.repository.CartOperations;
+import com.rgdasil.cart_service.repository.CartPage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CartRepricingJobTests {
+
+    @Mock
+    private CartOperations cartOperations;
+
+    @Mock
+    private ProductServiceClient productServiceClient;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CartRepricingJob job;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(CartRepricingJob.LOCK_KEY), anyString(), any(Duration.class)))
+                .thenReturn(true);
+        // rate=0: sem pausas entre as páginas
+        job = new CartRepricingJob(cartOperations, productServiceClient, redisTemplate, 2, 0,
+                Duration.ofMinutes(5),
+                new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry))
+                        .getBeanProvider(MeterRegistry.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenCatalogPriceChanged_thenOnlyStaleItemsAreRewrittenAndPassCompletes() {
+        // --- ARRANGE ---
+        Cart stale = cart("user-1", item("p1", "Caneca", 1000L));
+        Cart current = cart("user-2", item("p2", "Camiseta", 5000L));
+        when(cartOperations.scanCarts(CartPage.START, 2)).thenReturn(new CartPage("42", List.of(stale)));
+        when(cartOperations.scanCarts("42", 2)).thenReturn(new CartPage(CartPage.START, List.of(current)));
+        when(productServiceClient.getProductsByIds(anyCollection())).thenReturn(Map.of(
+                "p1", ProductDTO.builder().id("p1").name("Caneca").price(12.5).build(),
+                "p2", ProductDTO.builder().id("p2").name("Camiseta").price(50.0).build()));
+        when(cartOperations.repriceItems(anyMap())).thenReturn(1L);
+
+        // --- ACT ---
+        job.run();
+
+        // --- ASSERT ---
+        ArgumentCaptor<Map<String, Collection<CartItem>>> corrections = ArgumentCaptor.forClass(Map.class);
+        verify(cartOperations, times(1)).repriceItems(corrections.capture());
+        assertEquals(1250L, corrections.getValue().get("user-1").iterator().next().getPriceCents());
+
+        // Cursor salvo entre as páginas e apagado no fim da passada
+        verify(valueOperations).set(CartRepricingJob.CURSOR_KEY, "42");
+        verify(redisTemplate).delete(CartRepricingJob.CURSOR_KEY);
+        verify(valueOperations).set(eq(CartRepricingJob.LAST_PASS_KEY), anyString());
+        assertEquals(2.0, meterRegistry.get("cart.repricing.carts.scanned").counter().count());
+        assertEquals(1.0, meterRegistry.get("cart.repricing.items.repriced").counter().count());
+    }
+
+    @Test
+    void whenCursorWasSaved_thenPassResumesFromItAndKeepsItOnFailure() {
+        // --- ARRANGE ---
+        when(valueOperations.get(CartRepricingJob.CURSOR_KEY)).thenReturn("42");
+        when(cartOperations.scanCarts("42", 2))
+                .thenReturn(new CartPage("77", List.of(cart("user-1", item("p1", "Caneca", 1000L)))));
+        when(productServiceClient.getProductsByIds(anyCollection()))
+                .thenThrow(new ServiceUnavailableException("catalog down"));
+
+        // --- ACT ---
+        job.run();
+
+        // --- ASSERT ---
+        verify(cartOperations, never()).scanCarts(eq(CartPage.START), anyInt());
+        verify(cartOperations, never()).repriceItems(anyMap());
+        // A página falhou: o cursor continua no ponto anterior para a próxima execução
+        verify(valueOperations, never()).set(eq(CartRepricingJob.CURSOR_KEY), anyString());
+        verify(redisTemplate, never()).delete(CartRepricingJob.CURSOR_KEY);
+    }
+
+    @Test
+    void whenAnotherInstanceHoldsTheLock_thenNothingIsScanned() {
+        // --- ARRANGE ---
+        when(valueOperations.setIfAbsent(eq(CartRepricingJob.LOCK_KEY), anyString(), any(Duration.class)))
+                .thenReturn(false);
+
+        // --- ACT ---
+        job.run();
+
+        // --- ASSERT ---
+        verifyNoInteractions(cartOperations, productServiceClient);
+    }
+
+    private static Cart cart(String userId, CartItem item) {
+        return Cart.builder().userId(userId).items(Map.of(item.getProductId(), item)).build();
+    }
+
+    private static CartItem item(String productId, String name, long priceCents) {
+        return CartItem.builder().productId(productId).productName(name).quantity(1).priceCents(priceCents).build();
+    }
+}
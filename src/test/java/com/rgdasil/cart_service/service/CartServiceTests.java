@@ -2,18 +2,35 @@ package com.rgdasil.cart_service.service;
 
 import com.rgdasil.cart_service.domain.Cart;
 import com.rgdasil.cart_service.domain.CartItem;
+import com.rgdasil.cart_service.domain.CartMergePolicy;
 import com.rgdasil.cart_service.dto.AddItemRequest;
+import com.rgdasil.cart_service.dto.BulkAddItemsResponse;
+import com.rgdasil.cart_service.dto.ItemResult;
 import com.rgdasil.cart_service.dto.ProductDTO;
+import com.rgdasil.cart_service.exception.CartNotFoundException;
+import com.rgdasil.cart_service.exception.InvalidCartMergeException;
+import com.rgdasil.cart_service.exception.InvalidQuantityException;
 import com.rgdasil.cart_service.exception.ProductNotFoundException;
+import com.rgdasil.cart_service.metrics.HopMetrics;
+import com.rgdasil.cart_service.repository.CartOperations;
 import com.rgdasil.cart_service.repository.CartRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,11 +42,13 @@ class CartServiceTest {
     @Mock
     private CartRepository cartRepository;
 
+    @Mock
+    private CartOperations cartOperations;
+
     @Mock
     private ProductServiceClient productServiceClient;
 
-    // @InjectMocks: Cria uma instância real do CartService e injeta
-    @InjectMocks
+    // Instância real do CartService com os mocks acima; o carrinho é lido na própria thread
     private RestCartService cartService;
 
     private String userId;
@@ -39,6 +58,7 @@ class CartServiceTest {
     void setUp() {
         userId = "user-test-123";
         productId = "prod-test-abc";
+        cartService = newCartService(Runnable::run, "sum", false);
     }
 
     @Test
@@ -69,12 +89,39 @@ class CartServiceTest {
         CartItem item = resultCart.getItems().get(productId);
         assertEquals("Produto Teste", item.getProductName());
         assertEquals(2, item.getQuantity());
-        assertEquals(10.0, item.getPrice());
+        assertEquals(1000L, item.getPriceCents());
+        assertEquals(2000L, resultCart.getTotalPriceCents());
 
         // Verifica se o método save foi chamado exatamente 1 vez.
         verify(cartRepository, times(1)).save(any(Cart.class));
     }
 
+    @Test
+    void whenWriteCoalescerIsPresent_thenAtomicAddGoesThroughIt() {
+        // --- ARRANGE ---
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CartWriteCoalescer writeCoalescer = new CartWriteCoalescer(Duration.ZERO, Duration.ofSeconds(1), meterRegistry);
+        cartService = newCartService(Runnable::run, "sum", false, Optional.of(writeCoalescer));
+        ReflectionTestUtils.setField(cartService, "atomicMutations", true);
+
+        AddItemRequest request = new AddItemRequest();
+        request.setProductId(productId);
+        request.setQuantity(2);
+
+        Cart updated = Cart.builder().userId(userId).build();
+        when(productServiceClient.getProductById(productId))
+                .thenReturn(Optional.of(ProductDTO.builder().name("Produto Teste").price(10.0).build()));
+        when(cartOperations.addItems(eq(userId), anyCollection())).thenReturn(updated);
+
+        // --- ACT ---
+        Cart resultCart = cartService.addItemToCart(userId, request);
+
+        // --- ASSERT ---
+        assertSame(updated, resultCart);
+        assertEquals(1.0, meterRegistry.counter("cart.write.coalescing.writes").count());
+        verify(cartRepository, never()).save(any(Cart.class));
+    }
+
     @Test
     void whenAddItemToExistingCart_thenUpdatesQuantity() {
         // --- ARRANGE ---
@@ -86,7 +133,8 @@ class CartServiceTest {
 
         // Cria um carrinho que já existe no "banco de dados"
         Cart existingCart = Cart.builder().userId(userId).build();
-        existingCart.getItems().put(productId, CartItem.builder().productId(productId).quantity(2).build());
+        existingCart.addItem(CartItem.builder().productId(productId).quantity(2).build());
+        existingCart.setVersion(5L);
 
         when(productServiceClient.getProductById(productId)).thenReturn(Optional.of(product));
         // Agora, o repositório retorna o carrinho existente
@@ -99,8 +147,71 @@ class CartServiceTest {
         // --- ASSERT ---
         // A quantidade inicial era 2, adicionamos 1, o total deve ser 3.
         assertEquals(3, resultCart.getItems().get(productId).getQuantity());
+        // Toda mutação avança a versão (ETag) do carrinho
+        assertEquals(6L, resultCart.getVersion());
     }
     
+    @Test
+    void whenAtomicMutationsEnabled_thenItemIsAddedWithoutReadModifyWrite() {
+        // --- ARRANGE ---
+        ReflectionTestUtils.setField(cartService, "atomicMutations", true);
+
+        AddItemRequest request = new AddItemRequest();
+        request.setProductId(productId);
+        request.setQuantity(2);
+
+        ProductDTO product = ProductDTO.builder().name("Produto Teste").price(10.0).build();
+        Cart updatedCart = Cart.builder().userId(userId).build();
+
+        when(productServiceClient.getProductById(productId)).thenReturn(Optional.of(product));
+        when(cartOperations.addItems(eq(userId), anyCollection())).thenReturn(updatedCart);
+
+        // --- ACT ---
+        Cart resultCart = cartService.addItemToCart(userId, request);
+
+        // --- ASSERT ---
+        assertSame(updatedCart, resultCart);
+        // A mutação acontece no Redis: nada de findById + save
+        verify(cartRepository, never()).findById(any());
+        verify(cartRepository, never()).save(any(Cart.class));
+    }
+
+    @Test
+    void whenAddItem_thenProductLookupAndCartLoadRunConcurrently() throws Exception {
+        // --- ARRANGE ---
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        cartService = newCartService(executor, "sum", false);
+
+        AddItemRequest request = new AddItemRequest();
+        request.setProductId(productId);
+        request.setQuantity(1);
+
+        ProductDTO product = ProductDTO.builder().name("Produto Teste").price(10.0).build();
+        CountDownLatch cartLoadStarted = new CountDownLatch(1);
+
+        // A busca do produto só termina depois que a leitura do carrinho começou:
+        // se as duas rodassem em sequência, o latch nunca seria liberado a tempo.
+        when(cartRepository.findById(userId)).thenAnswer(invocation -> {
+            cartLoadStarted.countDown();
+            return Optional.empty();
+        });
+        when(productServiceClient.getProductById(productId)).thenAnswer(invocation -> {
+            assertTrue(cartLoadStarted.await(5, TimeUnit.SECONDS));
+            return Optional.of(product);
+        });
+        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        try {
+            // --- ACT ---
+            Cart resultCart = cartService.addItemToCart(userId, request);
+
+            // --- ASSERT ---
+            assertEquals(1, resultCart.getItems().get(productId).getQuantity());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     void whenProductNotFound_thenThrowsException() {
         // --- ARRANGE ---
@@ -120,4 +231,184 @@ class CartServiceTest {
         // Garante que o método save NUNCA foi chamado.
         verify(cartRepository, never()).save(any(Cart.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenAddItemsInBulk_thenValidItemsAreSavedOnceAndInvalidOnesReported() {
+        // --- ARRANGE ---
+        AddItemRequest valid = new AddItemRequest();
+        valid.setProductId(productId);
+        valid.setQuantity(2);
+
+        AddItemRequest missing = new AddItemRequest();
+        missing.setProductId("produto-inexistente");
+        missing.setQuantity(1);
+
+        AddItemRequest invalid = new AddItemRequest();
+        invalid.setProductId(productId);
+        invalid.setQuantity(0);
+
+        ProductDTO product = ProductDTO.builder().id(productId).name("Produto Teste").price(10.0).build();
+
+        // Uma única busca em lote; o produto inexistente não volta no mapa
+        when(productServiceClient.getProductsByIds(List.of(productId, "produto-inexistente")))
+                .thenReturn(Map.of(productId, product));
+        when(cartRepository.findById(userId)).thenReturn(Optional.empty());
+        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // --- ACT ---
+        BulkAddItemsResponse response = cartService.addItemsToCart(userId, List.of(valid, missing, invalid));
+
+        // --- ASSERT ---
+        assertEquals(2, response.getCart().getItems().get(productId).getQuantity());
+        assertEquals(ItemResult.Status.ADDED, response.getResults().get(0).getStatus());
+        assertEquals(ItemResult.Status.NOT_FOUND, response.getResults().get(1).getStatus());
+        assertEquals(ItemResult.Status.INVALID, response.getResults().get(2).getStatus());
+
+        // Todas as alterações numa única escrita, sem buscas individuais
+        verify(cartRepository, times(1)).save(any(Cart.class));
+        verify(productServiceClient, never()).getProductById(any());
+    }
+
+    @Test
+    void whenItemIsAlreadyInCart_thenQuantityIsSetWithoutProductLookup() {
+        // --- ARRANGE ---
+        ReflectionTestUtils.setField(cartService, "atomicMutations", true);
+        Cart updatedCart = Cart.builder().userId(userId).build();
+
+        when(cartOperations.setItemQuantity(userId, productId, 4, null)).thenReturn(Optional.of(updatedCart));
+
+        // --- ACT ---
+        Cart resultCart = cartService.updateItemQuantity(userId, productId, 4);
+
+        // --- ASSERT ---
+        assertSame(updatedCart, resultCart);
+        // Um único script no Redis: nem product-service, nem findById + save
+        verify(productServiceClient, never()).getProductById(any());
+        verify(cartRepository, never()).findById(any());
+        verify(cartOperations, times(1)).setItemQuantity(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void whenItemIsNotInCart_thenProductIsLookedUpAndItemCreated() {
+        // --- ARRANGE ---
+        ReflectionTestUtils.setField(cartService, "atomicMutations", true);
+        ProductDTO product = ProductDTO.builder().name("Produto Teste").price(10.0).build();
+        Cart updatedCart = Cart.builder().userId(userId).build();
+
+        when(cartOperations.setItemQuantity(userId, productId, 3, null)).thenReturn(Optional.empty());
+        when(productServiceClient.getProductById(productId)).thenReturn(Optional.of(product));
+        when(cartOperations.setItemQuantity(eq(userId), eq(productId), eq(3), notNull()))
+                .thenReturn(Optional.of(updatedCart));
+
+        // --- ACT ---
+        Cart resultCart = cartService.updateItemQuantity(userId, productId, 3);
+
+        // --- ASSERT ---
+        assertSame(updatedCart, resultCart);
+        verify(cartOperations).setItemQuantity(eq(userId), eq(productId), eq(3),
+                argThat(item -> item != null && item.getPriceCents() == 1000L
+                        && "Produto Teste".equals(item.getProductName())));
+    }
+
+    @Test
+    void whenQuantityIsNegative_thenThrowsException() {
+        // --- ACT & ASSERT ---
+        assertThrows(InvalidQuantityException.class, () -> cartService.updateItemQuantity(userId, productId, -1));
+        verifyNoInteractions(cartOperations, cartRepository, productServiceClient);
+    }
+
+    @Test
+    void whenRemovingItemFromMissingCart_thenThrowsCartNotFound() {
+        // --- ARRANGE ---
+        ReflectionTestUtils.setField(cartService, "atomicMutations", true);
+        when(cartOperations.removeItem(userId, productId)).thenReturn(Optional.empty());
+
+        // --- ACT & ASSERT ---
+        assertThrows(CartNotFoundException.class, () -> cartService.removeItem(userId, productId));
+    }
+
+    @Test
+    void whenMergingGuestCart_thenSingleAtomicOperationWithoutProductLookups() {
+        // --- ARRANGE ---
+        ReflectionTestUtils.setField(cartService, "atomicMutations", true);
+        Cart mergedCart = Cart.builder().userId(userId).build();
+        when(cartOperations.mergeCarts(userId, "guest-1", CartMergePolicy.SUM, null))
+                .thenReturn(Optional.of(mergedCart));
+
+        // --- ACT ---
+        Cart resultCart = cartService.mergeCart(userId, "guest-1");
+
+        // --- ASSERT ---
+        assertSame(mergedCart, resultCart);
+        // Nada de replay item a item: nem product-service, nem findById + save
+        verifyNoInteractions(productServiceClient, cartRepository);
+    }
+
+    @Test
+    void whenMergingWithRevalidation_thenMissingProductsAreDroppedAndPricesRefreshed() {
+        // --- ARRANGE ---
+        cartService = newCartService(Runnable::run, "sum", true);
+        ReflectionTestUtils.setField(cartService, "atomicMutations", true);
+        Cart guestCart = Cart.builder().userId("guest-1").items(Map.of(
+                "p1", CartItem.builder().productId("p1").productName("Caneca").quantity(2).priceCents(1000L).build(),
+                "p2", CartItem.builder().productId("p2").productName("Fora de linha").quantity(1).priceCents(500L).build()))
+                .build();
+        when(cartRepository.findById("guest-1")).thenReturn(Optional.of(guestCart));
+        when(productServiceClient.getProductsByIds(any()))
+                .thenReturn(Map.of("p1", ProductDTO.builder().id("p1").name("Caneca").price(12.5).build()));
+        when(cartOperations.mergeCarts(eq(userId), eq("guest-1"), eq(CartMergePolicy.SUM), any()))
+                .thenReturn(Optional.of(Cart.builder().userId(userId).build()));
+
+        // --- ACT ---
+        cartService.mergeCart(userId, "guest-1");
+
+        // --- ASSERT ---
+        // Uma única busca em lote; só o produto que ainda existe entra, com o preço atual
+        verify(productServiceClient, times(1)).getProductsByIds(any());
+        verify(cartOperations).mergeCarts(eq(userId), eq("guest-1"), eq(CartMergePolicy.SUM),
+                argThat(items -> items.size() == 1 && items.iterator().next().getPriceCents() == 1250L));
+    }
+
+    @Test
+    void whenMergeSourceIsNotAGuestCart_thenThrowsException() {
+        // --- ACT & ASSERT ---
+        assertThrows(InvalidCartMergeException.class, () -> cartService.mergeCart(userId, "other-user"));
+        assertThrows(InvalidCartMergeException.class, () -> cartService.mergeCart(userId, userId));
+        verifyNoInteractions(cartOperations, cartRepository, productServiceClient);
+    }
+
+    @Test
+    void whenMergingWithMaxPolicy_thenLargerQuantityWinsAndGuestCartIsDeleted() {
+        // --- ARRANGE ---
+        cartService = newCartService(Runnable::run, "max", false);
+        Cart userCart = Cart.builder().userId(userId).items(Map.of(
+                "p1", CartItem.builder().productId("p1").quantity(2).priceCents(1000L).build())).build();
+        Cart guestCart = Cart.builder().userId("guest-1").items(Map.of(
+                "p1", CartItem.builder().productId("p1").quantity(5).priceCents(1000L).build(),
+                "p2", CartItem.builder().productId("p2").quantity(1).priceCents(300L).build())).build();
+        when(cartRepository.findById(userId)).thenReturn(Optional.of(userCart));
+        when(cartRepository.findById("guest-1")).thenReturn(Optional.of(guestCart));
+        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // --- ACT ---
+        Cart resultCart = cartService.mergeCart(userId, "guest-1");
+
+        // --- ASSERT ---
+        assertEquals(5, resultCart.getItems().get("p1").getQuantity());
+        assertEquals(1, resultCart.getItems().get("p2").getQuantity());
+        assertEquals(6, resultCart.getItemCount());
+        verify(cartRepository).deleteById("guest-1");
+        verify(productServiceClient, never()).getProductsByIds(any());
+    }
+
+    private RestCartService newCartService(Executor cartLoadExecutor, String mergePolicy, boolean revalidateOnMerge) {
+        return newCartService(cartLoadExecutor, mergePolicy, revalidateOnMerge, Optional.empty());
+    }
+
+    private RestCartService newCartService(Executor cartLoadExecutor, String mergePolicy, boolean revalidateOnMerge,
+                                           Optional<CartWriteCoalescer> writeCoalescer) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new RestCartService(cartRepository, cartOperations, productServiceClient, cartLoadExecutor,
+                meterRegistry, new HopMetrics(meterRegistry), writeCoalescer, mergePolicy, revalidateOnMerge, "guest-");
+    }
+}
@@ -0,0 +1,132 @@
+package com.rgdasil.cart_service.service;
+
+import com.rgdasil.cart_service.domain.Cart;
+import com.rgdasil.cart_service.domain.CartItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartWriteCoalescerTests {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService executor;
+    private List<List<CartItem>> writes;
+    private BiFunction<String, List<CartItem>, Cart> writer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newFixedThreadPool(8);
+        writes = Collections.synchronizedList(new ArrayList<>());
+        // Simula o Redis: cada escrita devolve um carrinho com todos os itens gravados até ali
+        Cart stored = Cart.builder().userId("user-1").build();
+        writer = (userId, items) -> {
+            writes.add(items);
+            synchronized (stored) {
+                items.forEach(stored::addItem);
+                return Cart.builder().userId(userId).items(stored.getItems()).build();
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void whenMutationsArriveWithinWindow_thenOneWriteServesEveryCaller() throws Exception {
+        // --- ARRANGE ---
+        CartWriteCoalescer coalescer = new CartWriteCoalescer(Duration.ofMillis(300), Duration.ofSeconds(1),
+                meterRegistry);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Cart>> responses = new ArrayList<>();
+
+        // --- ACT ---
+        for (int i = 0; i < 5; i++) {
+            responses.add(executor.submit(() -> {
+                start.await();
+                return coalescer.add("user-1", item("p1", 1), writer);
+            }));
+        }
+        start.countDown();
+
+        // --- ASSERT ---
+        for (Future<Cart> response : responses) {
+            // Cada chamador recebe um carrinho que já inclui a sua própria adição
+            assertEquals(5, response.get(5, TimeUnit.SECONDS).getItems().get("p1").getQuantity());
+        }
+        assertEquals(1, writes.size(), "As cinco adições devem virar uma única escrita.");
+        assertEquals(1, writes.get(0).size(), "Itens do mesmo produto são somados antes da escrita.");
+        assertEquals(5.0, coalescer.getCoalescingRatio());
+    }
+
+    @Test
+    void whenWriteFails_thenEveryCallerInTheBatchSeesTheError() throws Exception {
+        // --- ARRANGE ---
+        CartWriteCoalescer coalescer = new CartWriteCoalescer(Duration.ofMillis(300), Duration.ofSeconds(1),
+                meterRegistry);
+        CountDownLatch start = new CountDownLatch(1);
+        BiFunction<String, List<CartItem>, Cart> failing = (userId, items) -> {
+            throw new IllegalStateException("redis down");
+        };
+
+        // --- ACT ---
+        Future<Cart> first = executor.submit(() -> {
+            start.await();
+            return coalescer.add("user-1", item("p1", 1), failing);
+        });
+        Future<Cart> second = executor.submit(() -> {
+            start.await();
+            return coalescer.add("user-1", item("p2", 1), failing);
+        });
+        start.countDown();
+
+        // --- ASSERT ---
+        Exception firstError = assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+        Exception secondError = assertThrows(Exception.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, firstError.getCause());
+        assertInstanceOf(IllegalStateException.class, secondError.getCause());
+    }
+
+    @Test
+    void whenShuttingDown_thenOpenBatchIsFlushedWithoutWaitingForWindow() throws Exception {
+        // --- ARRANGE ---
+        CartWriteCoalescer coalescer = new CartWriteCoalescer(Duration.ofSeconds(30), Duration.ofSeconds(5),
+                meterRegistry);
+        Future<Cart> pending = executor.submit(() -> coalescer.add("user-1", item("p1", 2), writer));
+        // Dá tempo do líder abrir o lote
+        while (meterRegistry.get("cart.write.coalescing.mutations").counter().count() == 0) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(50);
+
+        // --- ACT ---
+        coalescer.stop();
+
+        // --- ASSERT ---
+        assertEquals(2, pending.get(2, TimeUnit.SECONDS).getItems().get("p1").getQuantity());
+        assertFalse(coalescer.isRunning());
+        // Depois do desligamento as adições vão direto, sem janela
+        assertEquals(3, coalescer.add("user-1", item("p1", 1), writer).getItems().get("p1").getQuantity());
+        assertEquals(2, writes.size());
+    }
+
+    private static CartItem item(String productId, int quantity) {
+        return CartItem.builder().productId(productId).quantity(quantity).priceCents(1000L).build();
+    }
+}
@@ -0,0 +1,103 @@
+package com.rgdasil.cart_service.service;
+
+import com.rgdasil.cart_service.dto.ProductDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogReplicaTests {
+
+    private static final OffsetDateTime T1 = OffsetDateTime.parse("2026-01-01T10:00:00Z");
+    private static final OffsetDateTime T2 = OffsetDateTime.parse("2026-01-01T11:00:00Z");
+
+    @Mock
+    private ProductServiceClient delegate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CatalogReplica replica;
+    private CatalogChangeFeed feed;
+    private ReplicatedProductServiceClient client;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        replica = new CatalogReplica(16);
+        // Sem start(): só a aplicação de eventos é exercitada, sem Redis
+        feed = new CatalogChangeFeed(replica, delegate, null, null, "product-changes", 100, meterRegistry);
+        client = new ReplicatedProductServiceClient(replica, delegate);
+        client.bindMetrics(meterRegistry);
+    }
+
+    @Test
+    void whenOlderEventArrivesAfterNewerOne_thenReplicaKeepsNewerPrice() {
+        // --- ARRANGE ---
+        feed.apply(Map.of("op", "upsert", "id", "p1", "name", "Caneca", "price", "12.50", "stock", "3",
+                "updated_at", T2.toString()));
+
+        // --- ACT ---
+        feed.apply(Map.of("op", "upsert", "id", "p1", "name", "Caneca", "price", "10.00", "stock", "9",
+                "updated_at", T1.toString()));
+
+        // --- ASSERT ---
+        ProductDTO product = replica.get("p1").orElseThrow();
+        assertEquals(12.5, product.getPrice());
+        assertEquals(3, product.getStock());
+    }
+
+    @Test
+    void whenProductIsDeleted_thenReplayedOlderUpsertDoesNotResurrectIt() {
+        // --- ARRANGE ---
+        feed.apply(Map.of("op", "delete", "id", "p1", "updated_at", T2.toString()));
+
+        // --- ACT ---
+        feed.apply(Map.of("op", "upsert", "id", "p1", "name", "Caneca", "price", "10.00",
+                "updated_at", T1.toString()));
+
+        // --- ASSERT ---
+        assertTrue(replica.get("p1").isEmpty());
+        assertTrue(replica.knownIds().isEmpty());
+    }
+
+    @Test
+    void whenProductIsReplicated_thenLookupNeedsNoNetworkHopEvenIfProductServiceIsDown() {
+        // --- ARRANGE ---
+        // Nenhum stub no delegate: qualquer ida ao product-service falharia o teste
+        replica.upsert(ProductDTO.builder().id("p1").name("Caneca").price(12.5).updatedAt(T1).build());
+
+        // --- ACT ---
+        Optional<ProductDTO> product = client.getProductById("p1");
+
+        // --- ASSERT ---
+        assertEquals("Caneca", product.orElseThrow().getName());
+        verifyNoInteractions(delegate);
+        assertEquals(1.0, meterRegistry.get("catalog.replica.lookups").tag("outcome", "hit").counter().count());
+    }
+
+    @Test
+    void whenBatchHasUnknownProducts_thenOnlyThoseGoToProductServiceAndAreReplicated() {
+        // --- ARRANGE ---
+        replica.upsert(ProductDTO.builder().id("p1").name("Caneca").price(12.5).build());
+        when(delegate.getProductsByIds(List.of("p2")))
+                .thenReturn(Map.of("p2", ProductDTO.builder().id("p2").name("Camiseta").price(50.0).build()));
+
+        // --- ACT ---
+        Map<String, ProductDTO> products = client.getProductsByIds(List.of("p2", "p1"));
+
+        // --- ASSERT ---
+        assertEquals(List.of("p2", "p1"), List.copyOf(products.keySet()));
+        assertTrue(replica.get("p2").isPresent(), "Produto buscado no product-service deve entrar na réplica.");
+        verify(delegate, times(1)).getProductsByIds(List.of("p2"));
+    }
+}
@@ -0,0 +1,105 @@
+package com.rgdasil.cart_service.service;
+
+import com.rgdasil.cart_service.dto.ProductDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescingProductServiceClientTests {
+
+    @Test
+    void whenLookupsAreConcurrent_thenOnlyOneCallReachesDelegate() throws Exception {
+        // --- ARRANGE ---
+        String productId = "prod-hot";
+        ProductDTO product = ProductDTO.builder().id(productId).name("Produto Popular").price(5.0).build();
+
+        AtomicInteger delegateCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        // O delegate segura a primeira chamada até todos os chamadores estarem esperando
+        ProductServiceClient slowDelegate = id -> {
+            delegateCalls.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Optional.of(product);
+        };
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CoalescingProductServiceClient client = new CoalescingProductServiceClient(slowDelegate, meterRegistry);
+
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        List<Future<Optional<ProductDTO>>> results = new ArrayList<>();
+
+        // --- ACT ---
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> client.getProductById(productId)));
+        }
+        // Espera até que os demais chamadores tenham se juntado à chamada em andamento
+        while (meterRegistry.counter("product.lookup.coalesced").count() < callers - 1) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        // --- ASSERT ---
+        for (Future<Optional<ProductDTO>> result : results) {
+            assertEquals(Optional.of(product), result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, delegateCalls.get());
+        assertEquals(callers - 1, client.topCoalesced(10).get(productId));
+        executor.shutdown();
+    }
+
+    @Test
+    void whenLeaderFailsWithError_thenWaitersAreReleasedWithTheError() throws Exception {
+        // --- ARRANGE ---
+        String productId = "prod-hot";
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ProductServiceClient failingDelegate = id -> {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new StackOverflowError("delegate blew the stack");
+        };
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CoalescingProductServiceClient client = new CoalescingProductServiceClient(failingDelegate, meterRegistry);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // --- ACT ---
+        Future<Optional<ProductDTO>> leader = executor.submit(() -> client.getProductById(productId));
+        // O segundo chamador precisa se juntar à chamada em andamento, não iniciar outra
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        Future<Optional<ProductDTO>> waiter = executor.submit(() -> client.getProductById(productId));
+        while (meterRegistry.counter("product.lookup.coalesced").count() < 1) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        // --- ASSERT ---
+        ExecutionException leaderFailure = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException waiterFailure = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(StackOverflowError.class, leaderFailure.getCause());
+        assertInstanceOf(StackOverflowError.class, waiterFailure.getCause());
+        executor.shutdown();
+    }
+}
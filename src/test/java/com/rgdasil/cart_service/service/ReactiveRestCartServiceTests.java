@@ -0,0 +1,115 @@
+package com.rgdasil.cart_service.service;
+
+import com.rgdasil.cart_service.domain.Cart;
+import com.rgdasil.cart_service.domain.CartItem;
+import com.rgdasil.cart_service.dto.AddItemRequest;
+import com.rgdasil.cart_service.dto.ItemResult;
+import com.rgdasil.cart_service.dto.ProductDTO;
+import com.rgdasil.cart_service.exception.CartNotFoundException;
+import com.rgdasil.cart_service.exception.ProductNotFoundException;
+import com.rgdasil.cart_service.repository.ReactiveCartRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveRestCartServiceTests {
+
+    @Mock
+    private ReactiveCartRepository cartRepository;
+
+    @Mock
+    private ReactiveProductServiceClient productServiceClient;
+
+    private ReactiveRestCartService cartService;
+
+    private String userId;
+    private ProductDTO product;
+
+    @BeforeEach
+    void setUp() {
+        cartService = new ReactiveRestCartService(cartRepository, productServiceClient);
+        userId = "user-123";
+        product = ProductDTO.builder().id("p1").name("Caneca").price(10.0).build();
+    }
+
+    @Test
+    void whenProductExists_thenItemIsAddedInASingleRepositoryCall() {
+        // --- ARRANGE ---
+        Cart updated = Cart.builder().userId(userId).build();
+        when(productServiceClient.getProductById("p1")).thenReturn(Mono.just(product));
+        when(cartRepository.addItems(eq(userId), anyCollection())).thenReturn(Mono.just(updated));
+
+        // --- ACT & ASSERT ---
+        StepVerifier.create(cartService.addItemToCart(userId, request("p1", 2)))
+                .expectNext(updated)
+                .verifyComplete();
+
+        // Preço convertido para centavos antes de ir para o Redis
+        verify(cartRepository).addItems(eq(userId), argThat((Collection<CartItem> items) -> items.size() == 1
+                && items.iterator().next().getPriceCents() == 1000
+                && items.iterator().next().getQuantity() == 2));
+    }
+
+    @Test
+    void whenProductDoesNotExist_thenErrorsWithoutTouchingTheRepository() {
+        // --- ARRANGE ---
+        when(productServiceClient.getProductById("p404")).thenReturn(Mono.empty());
+
+        // --- ACT & ASSERT ---
+        StepVerifier.create(cartService.addItemToCart(userId, request("p404", 1)))
+                .verifyError(ProductNotFoundException.class);
+
+        verifyNoInteractions(cartRepository);
+    }
+
+    @Test
+    void whenBulkAddHasUnknownProduct_thenOnlyFoundItemsAreWritten() {
+        // --- ARRANGE ---
+        Cart updated = Cart.builder().userId(userId).build();
+        when(productServiceClient.getProductsByIds(List.of("p1", "p404"))).thenReturn(Mono.just(Map.of("p1", product)));
+        when(cartRepository.addItems(eq(userId), anyCollection())).thenReturn(Mono.just(updated));
+
+        // --- ACT & ASSERT ---
+        StepVerifier.create(cartService.addItemsToCart(userId, List.of(request("p1", 1), request("p404", 1))))
+                .assertNext(response -> {
+                    assertSame(updated, response.getCart());
+                    assertEquals(ItemResult.Status.ADDED, response.getResults().get(0).getStatus());
+                    assertEquals(ItemResult.Status.NOT_FOUND, response.getResults().get(1).getStatus());
+                })
+                .verifyComplete();
+
+        verify(cartRepository).addItems(eq(userId), argThat((Collection<CartItem> items) -> items.size() == 1));
+    }
+
+    @Test
+    void whenCartDoesNotExist_thenGetCartErrors() {
+        // --- ARRANGE ---
+        when(cartRepository.findById(userId)).thenReturn(Mono.empty());
+
+        // --- ACT & ASSERT ---
+        StepVerifier.create(cartService.getCart(userId))
+                .verifyError(CartNotFoundException.class);
+    }
+
+    private static AddItemRequest request(String productId, int quantity) {
+        AddItemRequest request = new AddItemRequest();
+        request.setProductId(productId);
+        request.setQuantity(quantity);
+        return request;
+    }
+}
@@ -0,0 +1,92 @@
+package com.rgdasil.cart_service.service;
+
+import com.rgdasil.cart_service.config.ConcurrencyLimitProperties;
+import com.rgdasil.cart_service.config.ResilienceConfig;
+import com.rgdasil.cart_service.dto.ProductDTO;
+import com.rgdasil.cart_service.metrics.HopMetrics;
+import com.rgdasil.cart_service.resilience.AdaptiveConcurrencyLimiter;
+import com.rgdasil.cart_service.resilience.DependencyGuard;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RestProductServiceClientTests {
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Test
+    void whenOuterBatchHoldsTheOnlyProductServicePermit_thenSingleLookupsStillSucceed() {
+        // --- ARRANGE ---
+        BulkheadRegistry bulkheadRegistry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(1)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        // Simula a permissão que o @Bulkhead do getProductsByIds segura durante a busca
+        Bulkhead productService = bulkheadRegistry.bulkhead("productService");
+        assertTrue(productService.tryAcquirePermission());
+        RestProductServiceClient client = newClient(new ResilienceConfig().productServiceGuard(bulkheadRegistry));
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class),
+                any(ParameterizedTypeReference.class)))
+                .thenReturn(ResponseEntity.ok(List.of()));
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(ProductDTO.class)))
+                .thenReturn(ResponseEntity.ok(ProductDTO.builder().id("p1").name("Caneca").price(12.5).build()))
+                .thenReturn(ResponseEntity.ok(ProductDTO.builder().id("p2").name("Camiseta").price(49.9).build()));
+
+        // --- ACT ---
+        Map<String, ProductDTO> products = client.getProductsByIds(List.of("p1", "p2"));
+
+        // --- ASSERT ---
+        assertEquals(List.of("p1", "p2"), List.copyOf(products.keySet()));
+        assertEquals(0, productService.getMetrics().getAvailableConcurrentCalls());
+        assertEquals(1, bulkheadRegistry.bulkhead("productServiceFallback").getMetrics().getAvailableConcurrentCalls());
+    }
+
+    @Test
+    void whenFallbackBulkheadIsFull_thenSingleLookupIsNotSent() {
+        // --- ARRANGE ---
+        Bulkhead fallbackBulkhead = Bulkhead.of("productServiceFallback", BulkheadConfig.custom()
+                .maxConcurrentCalls(1)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        assertTrue(fallbackBulkhead.tryAcquirePermission());
+        RestProductServiceClient client = newClient(new DependencyGuard(null, fallbackBulkhead, null));
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class),
+                any(ParameterizedTypeReference.class)))
+                .thenReturn(ResponseEntity.ok(List.of()));
+
+        // --- ACT & ASSERT ---
+        assertThrows(BulkheadFullException.class, () -> client.getProductsByIds(List.of("p1", "p2")));
+        verify(restTemplate, never()).exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class),
+                eq(ProductDTO.class));
+    }
+
+    private RestProductServiceClient newClient(DependencyGuard productServiceGuard) {
+        return new RestProductServiceClient(restTemplate, "http://product-service", "api-key", "/batch", 50,
+                Runnable::run, new AdaptiveConcurrencyLimiter("product", new ConcurrencyLimitProperties.Limit()),
+                TimeLimiterRegistry.ofDefaults(), productServiceGuard, new HopMetrics(new SimpleMeterRegistry()));
+    }
+}
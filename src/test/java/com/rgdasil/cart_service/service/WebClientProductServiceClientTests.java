@@ -0,0 +1,85 @@
+package com.rgdasil.cart_service.service;
+
+import com.rgdasil.cart_service.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebClientProductServiceClientTests {
+
+    private final List<String> requestedPaths = new CopyOnWriteArrayList<>();
+
+    private WebClientProductServiceClient client;
+
+    @BeforeEach
+    void setUp() {
+        // product-service simulado: o lote só conhece p1, p2 existe individualmente e p3 não existe
+        WebClient webClient = WebClient.builder()
+                .baseUrl("http://product-service")
+                .exchangeFunction(request -> Mono.just(respond(request)))
+                .build();
+        client = new WebClientProductServiceClient(webClient, "api-key", "/batch", 50);
+    }
+
+    @Test
+    void whenBatchMissesIds_thenMissingOnesAreFetchedIndividually() {
+        // --- ACT & ASSERT ---
+        StepVerifier.create(client.getProductsByIds(List.of("p2", "p1", "p3")))
+                .assertNext(products -> {
+                    // Mantém a ordem pedida e omite o ID inexistente
+                    assertEquals(List.of("p2", "p1"), List.copyOf(products.keySet()));
+                    assertEquals("Caneca", products.get("p1").getName());
+                    assertEquals("Camiseta", products.get("p2").getName());
+                })
+                .verifyComplete();
+
+        assertTrue(requestedPaths.containsAll(List.of("/batch", "/p2", "/p3")));
+        assertFalse(requestedPaths.contains("/p1"));
+    }
+
+    @Test
+    void whenProductIsNotFound_thenCompletesEmpty() {
+        // --- ACT & ASSERT ---
+        StepVerifier.create(client.getProductById("p3"))
+                .verifyComplete();
+    }
+
+    @Test
+    void whenCircuitBreakerFallbackRuns_thenServiceUnavailable() {
+        // --- ACT & ASSERT ---
+        StepVerifier.create(client.getProductByIdFallback("p1", new RuntimeException("connection refused")))
+                .verifyError(ServiceUnavailableException.class);
+        StepVerifier.create(client.getProductsByIdsFallback(List.of("p1", "p2"), new RuntimeException("connection refused")))
+                .verifyError(ServiceUnavailableException.class);
+    }
+
+    private ClientResponse respond(ClientRequest request) {
+        String path = request.url().getPath();
+        requestedPaths.add(path);
+
+        return switch (path) {
+            case "/batch" -> json("[{\"id\":\"p1\",\"name\":\"Caneca\",\"price\":12.5}]");
+            case "/p2" -> json("{\"id\":\"p2\",\"name\":\"Camiseta\",\"price\":49.9}");
+            default -> ClientResponse.create(HttpStatus.NOT_FOUND).build();
+        };
+    }
+
+    private static ClientResponse json(String body) {
+        return ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build();
+    }
+}